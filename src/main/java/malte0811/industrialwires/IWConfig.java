@@ -15,6 +15,7 @@
 package malte0811.industrialwires;
 
 import blusunrize.immersiveengineering.common.Config.IEConfig;
+import malte0811.industrialwires.wires.EnergyRoutingCache;
 import net.minecraftforge.common.config.Config;
 import net.minecraftforge.common.config.Config.Comment;
 import net.minecraftforge.common.config.Config.RequiresMcRestart;
@@ -37,6 +38,22 @@ public class IWConfig {
 	@Comment({"The EU loss rates of the wires (EU per block). Order is Tin, Copper, Gold, HV, Glass Fiber"})
 	public static double[] euLossPerBlock = {.025, .3, .5, 1, .025};
 
+	@Comment({"Set this to true to distribute the energy of all mixed connectors in a dimension in one pass at the end",
+			"of the tick instead of each connector querying every output on its own. Faster on large networks (default: false)"})
+	public static boolean wireNetSolver = false;
+
+	@Comment({"Synchronization packets for multiblocks and panels are only sent to players tracking the chunk that are",
+			"at most this many blocks away. 0 means all players tracking the chunk (default: 0)"})
+	public static int syncRange = 0;
+
+	@Comment({"Set this to true to notify panel components of redstone channel changes once at the end of the tick instead",
+			"of on every change. Reduces work when channels change several times per tick (default: false)"})
+	public static boolean deferPanelNotifications = false;
+
+	@Comment({"Set this to true to bake the models of control panels on background threads. Panels that are still being",
+			"baked are rendered with their previous model or without components. Client only (default: false)"})
+	public static boolean asyncPanelBaking = false;
+
 	@Comment({"Set this to false to completely disable any conversion between IF and EU (default: true)"})
 	@RequiresMcRestart
 	public static boolean enableConversion = true;
@@ -56,6 +73,9 @@ public class IWConfig {
 		@Comment({"What energy types can be used with the mechanical multiblock. 0: None (Probably useless),",
 				"1: EU (Currently useless), 2: FE, 3:EU and FE (allows conversion, default)"})
 		public static int multiblockEnergyType = 3;
+		@Comment({"Set this to true to calculate the electrical energy transfer of all mechanical multiblocks in a dimension",
+				"in parallel at the end of the tick. Useful with many multiblocks on servers with multiple cores (default: false)"})
+		public static boolean parallelMultiblockTick = false;
 
 		public static boolean allowMBFE() {
 			return (multiblockEnergyType & 2) != 0;
@@ -84,6 +104,7 @@ public class IWConfig {
 	public static void onConfigChanged(ConfigChangedEvent.OnConfigChangedEvent ev) {
 		if (ev.getModID().equals(IndustrialWires.MODID)) {
 			ConfigManager.sync(IndustrialWires.MODID, Config.Type.INSTANCE);
+			EnergyRoutingCache.invalidateAll();
 		}
 	}
 }
\ No newline at end of file
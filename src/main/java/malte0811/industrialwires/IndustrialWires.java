@@ -42,6 +42,7 @@ package malte0811.industrialwires;
  import malte0811.industrialwires.network.MessageGUIInteract;
  import malte0811.industrialwires.network.MessageItemSync;
  import malte0811.industrialwires.network.MessagePanelInteract;
+ import malte0811.industrialwires.network.MessageTileSyncBundle;
  import malte0811.industrialwires.network.MessageTileSyncIW;
  import malte0811.industrialwires.util.CommandIW;
  import malte0811.industrialwires.util.MultiblockTemplateManual;
@@ -258,6 +259,7 @@ public class IndustrialWires {
 		packetHandler.registerMessage(MessagePanelInteract.HandlerServer.class, MessagePanelInteract.class, 1, Side.SERVER);
 		packetHandler.registerMessage(MessageGUIInteract.HandlerServer.class, MessageGUIInteract.class, 2, Side.SERVER);
 		packetHandler.registerMessage(MessageItemSync.HandlerServer.class, MessageItemSync.class, 3, Side.SERVER);
+		packetHandler.registerMessage(MessageTileSyncBundle.HandlerClient.class, MessageTileSyncBundle.class, 4, Side.CLIENT);
 
 		if (hasIC2) {
 			ResourceLocation tex = new ResourceLocation(MODID, "blocks/ic2_conn_tin");
@@ -15,6 +15,7 @@
 
 package malte0811.industrialwires.blocks;
 
+import malte0811.industrialwires.network.SyncSchema;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -22,4 +23,11 @@ import net.minecraftforge.fml.relauncher.SideOnly;
 public interface ISyncReceiver {
 	@SideOnly(Side.CLIENT)
 	void onSync(NBTTagCompound nbt);
+
+	/**
+	 * @return the schema used to encode syncs for this tile, or null to always send them as NBT
+	 */
+	default SyncSchema getSyncSchema() {
+		return null;
+	}
 }
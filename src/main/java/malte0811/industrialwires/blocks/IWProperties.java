@@ -18,12 +18,14 @@ package malte0811.industrialwires.blocks;
 import malte0811.industrialwires.util.MBSideConfig;
 import net.minecraft.block.properties.PropertyEnum;
 import net.minecraft.util.IStringSerializable;
+import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.common.property.IUnlistedProperty;
 
 public final class IWProperties {
 	private IWProperties() {}
 	public static final PropertyEnum<MarxType> MARX_TYPE = PropertyEnum.create("marx_type", MarxType.class);
 	public static final IUnlistedProperty<MBSideConfig> MB_SIDES = new MBSideConfigProperty();
+	public static final IUnlistedProperty<BlockPos> POSITION = new PositionProperty();
 	public enum MarxType implements IStringSerializable {
 		NO_MODEL,
 		BOTTOM,
@@ -59,4 +61,27 @@ public final class IWProperties {
 			return value.toString();
 		}
 	}
+
+	public static class PositionProperty implements IUnlistedProperty<BlockPos> {
+
+		@Override
+		public String getName() {
+			return "position";
+		}
+
+		@Override
+		public boolean isValid(BlockPos value) {
+			return value!=null;
+		}
+
+		@Override
+		public Class<BlockPos> getType() {
+			return BlockPos.class;
+		}
+
+		@Override
+		public String valueToString(BlockPos value) {
+			return value.toString();
+		}
+	}
 }
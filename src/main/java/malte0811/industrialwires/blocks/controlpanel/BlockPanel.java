@@ -19,6 +19,7 @@ import blusunrize.immersiveengineering.api.IEProperties;
 import malte0811.industrialwires.IndustrialWires;
 import malte0811.industrialwires.blocks.BlockIWBase;
 import malte0811.industrialwires.blocks.IMetaEnum;
+import malte0811.industrialwires.blocks.IWProperties;
 import malte0811.industrialwires.controlpanel.PanelComponent;
 import malte0811.industrialwires.controlpanel.PropertyComponents;
 import malte0811.industrialwires.util.MiscUtils;
@@ -112,7 +113,7 @@ public class BlockPanel extends BlockIWBase implements IMetaEnum {
 	protected BlockStateContainer createBlockState() {
 		BlockStateContainer base = super.createBlockState();
 		return new ExtendedBlockState(this, base.getProperties().toArray(new IProperty[0]), new IUnlistedProperty[]{
-				PropertyComponents.INSTANCE, IEProperties.CONNECTIONS
+				PropertyComponents.INSTANCE, IEProperties.CONNECTIONS, IWProperties.POSITION
 		});
 	}
 
@@ -138,7 +139,8 @@ public class BlockPanel extends BlockIWBase implements IMetaEnum {
 		if (state instanceof IExtendedBlockState) {
 			TileEntity te = world.getTileEntity(pos);
 			if (te instanceof TileEntityPanel) {
-				state = ((IExtendedBlockState) state).withProperty(PropertyComponents.INSTANCE, ((TileEntityPanel) te).getComponents());
+				state = ((IExtendedBlockState) state).withProperty(PropertyComponents.INSTANCE, ((TileEntityPanel) te).getComponents())
+						.withProperty(IWProperties.POSITION, pos);
 			}
 		}
 		return state;
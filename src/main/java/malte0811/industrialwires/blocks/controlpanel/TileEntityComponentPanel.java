@@ -100,6 +100,7 @@ public class TileEntityComponentPanel extends TileEntityPanel {
 		components.add(comp);
 		comp.setPanel(this);
 		comp.setNetwork(panelNetwork);
+		pickGrid = null;
 	}
 
 	private class SingleCompNetwork extends ControlPanelNetwork {
@@ -47,8 +47,15 @@ public class TileEntityGeneralCP extends TileEntityIWBase implements IOwner {
 							panelNetwork = neighbour.panelNetwork;
 							panelNetwork.addMember(this);
 							isFinalNet = true;
-						} else {
-							neighbour.panelNetwork.replaceWith(panelNetwork, world);
+						} else if (neighbour.panelNetwork != panelNetwork) {
+							// Always move the members of the smaller network
+							ControlPanelNetwork other = neighbour.panelNetwork;
+							if (other.getMemberCount() > panelNetwork.getMemberCount()) {
+								// Moves this TE as well
+								panelNetwork.replaceWith(other, world);
+							} else {
+								other.replaceWith(panelNetwork, world);
+							}
 						}
 					}
 				}
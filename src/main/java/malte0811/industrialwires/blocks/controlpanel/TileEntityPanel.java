@@ -21,9 +21,11 @@ import blusunrize.immersiveengineering.common.blocks.IEBlockInterfaces.IPlayerIn
 import blusunrize.immersiveengineering.common.util.chickenbones.Matrix4;
 import malte0811.industrialwires.IndustrialWires;
 import malte0811.industrialwires.blocks.IBlockBoundsIW;
+import malte0811.industrialwires.blocks.ISyncReceiver;
 import malte0811.industrialwires.controlpanel.*;
 import malte0811.industrialwires.controlpanel.ControlPanelNetwork.RSChannel;
 import malte0811.industrialwires.network.MessagePanelInteract;
+import malte0811.industrialwires.network.TileSyncDispatcher;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.player.EntityPlayer;
@@ -36,9 +38,12 @@ import net.minecraft.util.EnumHand;
 import net.minecraft.util.ITickable;
 import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.RayTraceResult;
 import net.minecraft.util.math.Vec3d;
 import net.minecraftforge.common.util.Constants;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -48,7 +53,8 @@ import javax.annotation.Nullable;
 import static malte0811.industrialwires.util.MiscUtils.apply;
 
 public class TileEntityPanel extends TileEntityGeneralCP implements IDirectionalTile, IBlockBoundsIW, IPlayerInteraction,
-		ITickable, IEBlockInterfaces.ITileDrop {
+		ITickable, IEBlockInterfaces.ITileDrop, ISyncReceiver {
+	private static final double PICK_MARGIN = .002;
 	protected PropertyComponents.PanelRenderProperties components = new PropertyComponents.PanelRenderProperties();
 
 	{
@@ -86,9 +92,51 @@ public class TileEntityPanel extends TileEntityGeneralCP implements IDirectional
 			for (PanelComponent pc : components) {
 				pc.update();
 			}
+			sendComponentUpdates();
 		}
 	}
 
+	/**
+	 * Sends the state of all components that changed since the last tick, indexed by their position in the component
+	 * list. Changes to the layout of the panel still need a full update packet.
+	 */
+	private void sendComponentUpdates() {
+		NBTTagList changed = null;
+		for (int i = 0; i < components.size(); i++) {
+			PanelComponent pc = components.get(i);
+			if (pc.needsSync()) {
+				if (changed == null) {
+					changed = new NBTTagList();
+				}
+				NBTTagCompound nbt = new NBTTagCompound();
+				nbt.setInteger("id", i);
+				pc.writeSyncNBT(nbt);
+				changed.appendTag(nbt);
+			}
+		}
+		if (changed != null) {
+			NBTTagCompound nbt = new NBTTagCompound();
+			nbt.setTag("changed", changed);
+			TileSyncDispatcher.sendToTracking(this, nbt);
+		}
+	}
+
+	@Override
+	@SideOnly(Side.CLIENT)
+	public void onSync(NBTTagCompound nbt) {
+		NBTTagList changed = nbt.getTagList("changed", Constants.NBT.TAG_COMPOUND);
+		for (int i = 0; i < changed.tagCount(); i++) {
+			NBTTagCompound compNBT = changed.getCompoundTagAt(i);
+			int id = compNBT.getInteger("id");
+			if (id >= 0 && id < components.size()) {
+				components.get(id).readSyncNBT(compNBT);
+			}
+		}
+		pickGrid = null;
+		IBlockState state = world.getBlockState(pos);
+		world.notifyBlockUpdate(pos, state, state, 3);
+	}
+
 	@Override
 	public void setNetworkAndInit(ControlPanelNetwork newNet) {
 		super.setNetworkAndInit(newNet);
@@ -146,6 +194,7 @@ public class TileEntityPanel extends TileEntityGeneralCP implements IDirectional
 			components.setAngle(nbt.getFloat("angle"));
 		}
 		defAABB = null;
+		pickGrid = null;
 	}
 
 	public void writeToItemNBT(NBTTagCompound nbt, boolean toItem) {
@@ -213,6 +262,11 @@ public class TileEntityPanel extends TileEntityGeneralCP implements IDirectional
 	}
 
 	protected AxisAlignedBB defAABB;
+	// Client-side index of the components for picking, reset whenever they change
+	protected ComponentGrid pickGrid;
+	// Eye, far end of the ray and hit position in the space of the panel top, see getSelectedComponent
+	private final double[] pickBuffer = new double[9];
+	private final double[] pickRange = new double[2];
 
 	@Override
 	public AxisAlignedBB getBoundingBox() {
@@ -229,48 +283,142 @@ public class TileEntityPanel extends TileEntityGeneralCP implements IDirectional
 	@Nullable
 	public Pair<PanelComponent, RayTraceResult> getSelectedComponent(EntityPlayer player, Vec3d hitVec, boolean hitAbs) {
 		Matrix4 mat = components.getPanelTopTransformInverse();
-		PanelComponent retPc = null;
-		RayTraceResult retRay = null;
-		Vec3d playerPosRelative = player.getPositionVector().add(-pos.getX(), player.getEyeHeight() - pos.getY(), -pos.getZ());
-		Vec3d playerPosTransformed = mat.apply(playerPosRelative);
-		Vec3d hitRel = hitAbs ? hitVec.add(-pos.getX(), -pos.getY(), -pos.getZ()) : hitVec;
-		RayTraceResult r = getBoundingBox().calculateIntercept(playerPosRelative, playerPosRelative.add(player.getLookVec().scale(200)));
-		if (r != null && r.hitVec != null) {
-			hitRel = r.hitVec;
-		}
-		Vec3d ray = hitRel.subtract(playerPosRelative.subtract(hitRel).scale(10));
-		Vec3d rayTransformed = mat.apply(ray);
+		double eyeX = player.posX - pos.getX();
+		double eyeY = player.posY + player.getEyeHeight() - pos.getY();
+		double eyeZ = player.posZ - pos.getZ();
+		double hitX = hitAbs ? hitVec.x - pos.getX() : hitVec.x;
+		double hitY = hitAbs ? hitVec.y - pos.getY() : hitVec.y;
+		double hitZ = hitAbs ? hitVec.z - pos.getZ() : hitVec.z;
 		{
-			//Check whether the player is clicking on the back of the panel
-			Vec3d hitTransformed = mat.apply(new Vec3d(hitRel.x, hitRel.y, hitRel.z));
-			if (hitTransformed.y < 0) {
-				return null;
+			// Same as player.getLookVec().scale(200), without allocating
+			float yaw = -player.rotationYawHead * 0.017453292F - (float) Math.PI;
+			float pitch = -player.rotationPitch * 0.017453292F;
+			double horizontal = -MathHelper.cos(pitch);
+			double lookX = 200 * MathHelper.sin(yaw) * horizontal;
+			double lookY = 200 * MathHelper.sin(pitch);
+			double lookZ = 200 * MathHelper.cos(yaw) * horizontal;
+			double t = intersect(getBoundingBox(), 0, eyeX, eyeY, eyeZ, lookX, lookY, lookZ);
+			if (t >= 0) {
+				hitX = eyeX + t * lookX;
+				hitY = eyeY + t * lookY;
+				hitZ = eyeZ + t * lookZ;
 			}
 		}
-		for (PanelComponent pc : components) {
+		double[] points = pickBuffer;
+		transform(mat, eyeX, eyeY, eyeZ, points, 0);
+		transform(mat, 11 * hitX - 10 * eyeX, 11 * hitY - 10 * eyeY, 11 * hitZ - 10 * eyeZ, points, 3);
+		transform(mat, hitX, hitY, hitZ, points, 6);
+		//Check whether the player is clicking on the back of the panel
+		if (points[7] < 0) {
+			return null;
+		}
+		double startX = points[0], startY = points[1], startZ = points[2];
+		double deltaX = points[3] - startX, deltaY = points[4] - startY, deltaZ = points[5] - startZ;
+		if (pickGrid == null) {
+			pickGrid = ComponentGrid.of(components, PICK_MARGIN);
+		}
+		// Only the components in the grid cells the ray passes through can be hit
+		int candidates = pickGrid.querySegment(startX, startZ, points[3], points[5]);
+		PanelComponent retPc = null;
+		double retT = 0;
+		for (int i = 0; i < candidates; i++) {
+			PanelComponent pc = components.get(pickGrid.getResult(i));
 			AxisAlignedBB box = pc.getBlockRelativeAABB();
 			if (box.maxY > box.minY) {
-				box = box.grow(.002);
-				RayTraceResult hit = box.calculateIntercept(playerPosTransformed, rayTransformed);
-				if (hit != null) {
-					if (retPc == null) {
-						retPc = pc;
-						retRay = hit;
-					} else {
-						double oldDist = retRay.hitVec.subtract(playerPosRelative).lengthSquared();
-						double newDist = hit.hitVec.subtract(playerPosRelative).lengthSquared();
-						if (newDist < oldDist) {
-							retPc = pc;
-							retRay = hit;
-						}
-					}
+				double t = intersect(box, PICK_MARGIN, startX, startY, startZ, deltaX, deltaY, deltaZ);
+				if (t >= 0 && (retPc == null || t < retT)) {
+					retPc = pc;
+					retT = t;
 				}
 			}
 		}
-		if (retRay != null) {
-			retRay.hitVec = retRay.hitVec.subtract(retPc.getX(), 0, retPc.getY());
+		if (retPc == null) {
+			return null;
+		}
+		double x = startX + retT * deltaX;
+		double y = startY + retT * deltaY;
+		double z = startZ + retT * deltaZ;
+		EnumFacing side = getHitSide(retPc.getBlockRelativeAABB(), PICK_MARGIN, x, y, z);
+		RayTraceResult retRay = new RayTraceResult(new Vec3d(x - retPc.getX(), y, z - retPc.getY()), side);
+		return new ImmutablePair<>(retPc, retRay);
+	}
+
+	private static void transform(Matrix4 m, double x, double y, double z, double[] out, int offset) {
+		out[offset] = m.m00 * x + m.m01 * y + m.m02 * z + m.m03;
+		out[offset + 1] = m.m10 * x + m.m11 * y + m.m12 * z + m.m13;
+		out[offset + 2] = m.m20 * x + m.m21 * y + m.m22 * z + m.m23;
+	}
+
+	/**
+	 * Slab test of the segment start + t*delta (0 <= t <= 1) against box, grown by margin. Like
+	 * AxisAlignedBB#calculateIntercept, this finds the exit point if the segment starts inside the box.
+	 *
+	 * @return the t of the intersection, or -1 if there is none
+	 */
+	private double intersect(AxisAlignedBB box, double margin, double startX, double startY, double startZ,
+							 double deltaX, double deltaY, double deltaZ) {
+		double[] range = pickRange;
+		range[0] = Double.NEGATIVE_INFINITY;
+		range[1] = Double.POSITIVE_INFINITY;
+		if (!clipSlab(box.minX - margin, box.maxX + margin, startX, deltaX, range)
+				|| !clipSlab(box.minY - margin, box.maxY + margin, startY, deltaY, range)
+				|| !clipSlab(box.minZ - margin, box.maxZ + margin, startZ, deltaZ, range)) {
+			return -1;
+		}
+		double enter = range[0], exit = range[1];
+		if (enter >= 0) {
+			return enter <= 1 ? enter : -1;
+		}
+		return exit >= 0 && exit <= 1 ? exit : -1;
+	}
+
+	private static boolean clipSlab(double min, double max, double start, double delta, double[] range) {
+		if (delta == 0) {
+			return start >= min && start <= max;
+		}
+		double t0 = (min - start) / delta;
+		double t1 = (max - start) / delta;
+		if (t0 > t1) {
+			double tmp = t0;
+			t0 = t1;
+			t1 = tmp;
+		}
+		range[0] = Math.max(range[0], t0);
+		range[1] = Math.min(range[1], t1);
+		return range[0] <= range[1];
+	}
+
+	private static EnumFacing getHitSide(AxisAlignedBB box, double margin, double x, double y, double z) {
+		// The side whose plane is closest to the hit
+		EnumFacing ret = EnumFacing.WEST;
+		double minDist = Math.abs(x - (box.minX - margin));
+		for (EnumFacing side : EnumFacing.VALUES) {
+			double dist;
+			switch (side) {
+				case EAST:
+					dist = Math.abs(x - (box.maxX + margin));
+					break;
+				case DOWN:
+					dist = Math.abs(y - (box.minY - margin));
+					break;
+				case UP:
+					dist = Math.abs(y - (box.maxY + margin));
+					break;
+				case NORTH:
+					dist = Math.abs(z - (box.minZ - margin));
+					break;
+				case SOUTH:
+					dist = Math.abs(z - (box.maxZ + margin));
+					break;
+				default:
+					continue;
+			}
+			if (dist < minDist) {
+				minDist = dist;
+				ret = side;
+			}
 		}
-		return retPc != null ? new ImmutablePair<>(retPc, retRay) : null;
+		return ret;
 	}
 
 	@Override
@@ -19,6 +19,7 @@ import malte0811.industrialwires.IndustrialWires;
 import malte0811.industrialwires.blocks.IBlockBoundsIW;
 import malte0811.industrialwires.blocks.INetGUI;
 import malte0811.industrialwires.blocks.TileEntityIWBase;
+import malte0811.industrialwires.controlpanel.ComponentGrid;
 import malte0811.industrialwires.controlpanel.MessageType;
 import malte0811.industrialwires.controlpanel.PanelComponent;
 import malte0811.industrialwires.controlpanel.PanelUtils;
@@ -39,11 +40,39 @@ public class TileEntityPanelCreator extends TileEntityIWBase implements INetGUI,
 	public List<PanelComponent> components = new ArrayList<>();
 	@Nonnull
 	public ItemStack inv = ItemStack.EMPTY;
+	// Positions of the components for placement checks. Updated by addComponent/removeComponent, reset by anything
+	// else that changes components
+	private ComponentGrid occupancy;
+
+	public ComponentGrid getOccupancy() {
+		if (occupancy == null) {
+			occupancy = new ComponentGrid(0, 0, 1, 1, 16);
+			for (int i = 0; i < components.size(); i++) {
+				occupancy.add(i, components.get(i).getBlockRelativeAABB());
+			}
+		}
+		return occupancy;
+	}
+
+	public void addComponent(PanelComponent pc) {
+		components.add(pc);
+		if (occupancy != null) {
+			occupancy.add(components.size() - 1, pc.getBlockRelativeAABB());
+		}
+	}
+
+	public void removeComponent(int id) {
+		components.remove(id);
+		if (occupancy != null) {
+			occupancy.remove(id);
+		}
+	}
 
 	@Override
 	public void readNBT(NBTTagCompound nbt, boolean updatePacket) {
 		NBTTagList l = nbt.getTagList("components", 10);
 		PanelUtils.readListFromNBT(l, components);
+		occupancy = null;
 		NBTTagCompound invTag;
 		if (nbt.hasKey("inventory", 9)) {
 			invTag = nbt.getTagList("inventory", 10).getCompoundTagAt(0);
@@ -81,7 +110,7 @@ public class TileEntityPanelCreator extends TileEntityIWBase implements INetGUI,
 			if (pc != null) {
 				pc.setX(nbt.getFloat("x"));
 				pc.setY(nbt.getFloat("y"));
-				components.add(pc);
+				addComponent(pc);
 				if (!curr.isEmpty()) {
 					curr.shrink(1);
 					if (curr.getCount() <= 0) {
@@ -100,7 +129,7 @@ public class TileEntityPanelCreator extends TileEntityIWBase implements INetGUI,
 				ItemStack remItem = ItemPanelComponent.stackFromComponent(removed);
 				p.inventory.setItemStack(remItem);
 				p.inventory.markDirty();
-				components.remove(id);
+				removeComponent(id);
 			}
 			break;
 		case CREATE_PANEL:
@@ -108,8 +137,9 @@ public class TileEntityPanelCreator extends TileEntityIWBase implements INetGUI,
 				float height = PanelUtils.getHeight(inv);
 				float angle = PanelUtils.getAngle(inv);
 				boolean valid = true;
+				ComponentGrid occupancy = getOccupancy();
 				for (PanelComponent comp : components) {
-					if (!comp.isValidPos(components, height, angle)) {
+					if (!comp.isValidPos(components, occupancy, height, angle)) {
 						valid = false;
 						break;
 					}
@@ -126,6 +156,7 @@ public class TileEntityPanelCreator extends TileEntityIWBase implements INetGUI,
 					panel.setTagCompound(panelNBT);
 					inv = panel;
 					components.clear();
+					this.occupancy = null;
 				}
 			}
 			break;
@@ -142,12 +173,14 @@ public class TileEntityPanelCreator extends TileEntityIWBase implements INetGUI,
 					it.remove();
 				}
 			}
+			occupancy = null;
 			break;
 		case DISASSEMBLE:
 			if (components.size() == 0 && inv.getItem() == PanelUtils.PANEL_ITEM) {
 				TileEntityPanel te = new TileEntityPanel();
 				te.readFromItemNBT(inv.getTagCompound());
 				components = new ArrayList<>(te.getComponents());
+				occupancy = null;
 				inv = ItemStack.EMPTY;
 			}
 			break;
@@ -30,6 +30,12 @@ public abstract class TileEntityRSPanel extends TileEntityGeneralCP implements I
 	private boolean dirty = true;
 	private byte[] currInput = new byte[16];
 	private final ControlPanelNetwork.RSChannel[] channels = new ControlPanelNetwork.RSChannel[16];
+	// Bit i is set iff out[i] is not 0
+	protected int nonZeroOut = 0;
+	// The strengths this connector currently outputs to the panel network on each channel
+	private final byte[] sentToPanels = new byte[16];
+	// color -> strength -> state, created as needed
+	private final ControlPanelNetwork.RSChannelState[][] states = new ControlPanelNetwork.RSChannelState[16][];
 	private int controller = 0;
 
 
@@ -45,6 +51,7 @@ public abstract class TileEntityRSPanel extends TileEntityGeneralCP implements I
 			panelNetwork.removeIOFor(this);
 			for (byte i = 0; i < 16; i++) {
 				channels[i] = new ControlPanelNetwork.RSChannel(controller, i);
+				states[i] = null;
 			}
 			setNetworkAndInit(panelNetwork);
 		}
@@ -70,6 +77,12 @@ public abstract class TileEntityRSPanel extends TileEntityGeneralCP implements I
 	public void readNBT(NBTTagCompound nbt, boolean updatePacket) {
 		if (nbt.hasKey("out") && nbt.getByteArray("out").length == 16) {
 			out = nbt.getByteArray("out");
+			nonZeroOut = 0;
+			for (int i = 0; i < 16; i++) {
+				if (out[i] != 0) {
+					nonZeroOut |= 1 << i;
+				}
+			}
 		}
 		if (nbt.hasKey("in") && nbt.getByteArray("in").length == 16) {
 			currInput = nbt.getByteArray("in");
@@ -82,33 +95,62 @@ public abstract class TileEntityRSPanel extends TileEntityGeneralCP implements I
 		dirty = true;
 	}
 
+	/**
+	 * Only the channels where the strength output to the panel network changes are passed to the network
+	 */
 	protected void onInputChanged(byte[] newIn) {
 		if (!Arrays.equals(currInput, newIn)) {
-			ControlPanelNetwork.RSChannelState[] newStates = new ControlPanelNetwork.RSChannelState[16];
-			for (byte i = 0; i < 16; i++) {
-				if (newIn[i]>out[i]) {
-					newStates[i] = new ControlPanelNetwork.RSChannelState(channels[i], newIn[i]);
-				} else {
-					newStates[i] = new ControlPanelNetwork.RSChannelState(channels[i], (byte) 0);
+			int changed = 0;
+			for (int i = 0; i < 16; i++) {
+				byte newOut = newIn[i] > out[i] ? newIn[i] : 0;
+				if (newOut != sentToPanels[i]) {
+					sentToPanels[i] = newOut;
+					changed |= 1 << i;
+				}
+			}
+			if (changed != 0) {
+				ControlPanelNetwork.RSChannelState[] newStates = new ControlPanelNetwork.RSChannelState[Integer.bitCount(changed)];
+				int id = 0;
+				for (; changed != 0; changed &= changed - 1) {
+					int i = Integer.numberOfTrailingZeros(changed);
+					newStates[id++] = getState(i, sentToPanels[i]);
 				}
+				panelNetwork.setOutputs(this, newStates);
 			}
-			panelNetwork.setOutputs(this, newStates);
 			currInput = Arrays.copyOf(newIn, 16);
 		}
 	}
 
+	private ControlPanelNetwork.RSChannelState getState(int color, byte strength) {
+		if (states[color] == null) {
+			states[color] = new ControlPanelNetwork.RSChannelState[16];
+		}
+		int id = Math.max(0, Math.min(15, strength));
+		if (states[color][id] == null || states[color][id].getStrength() != strength) {
+			states[color][id] = new ControlPanelNetwork.RSChannelState(channels[color], strength);
+		}
+		return states[color][id];
+	}
+
 	@Override
 	public void setNetworkAndInit(ControlPanelNetwork newNet) {
 		super.setNetworkAndInit(newNet);
 		Consumer<ControlPanelNetwork.RSChannelState> listener = state -> {
 			if (out[state.getColor()] != state.getStrength()) {
 				out[state.getColor()] = state.getStrength();
+				if (state.getStrength() != 0) {
+					nonZeroOut |= 1 << state.getColor();
+				} else {
+					nonZeroOut &= ~(1 << state.getColor());
+				}
 				dirty = true;
 			}
 		};
 		panelNetwork.addListener(this, listener, channels);
 		byte[] oldIn = currInput;
 		currInput = new byte[16];
+		// The new network doesn't contain any outputs of this connector yet
+		Arrays.fill(sentToPanels, (byte) 0);
 		onInputChanged(oldIn);
 	}
 
@@ -127,7 +127,8 @@ public class TileEntityRSPanelIE extends TileEntityRSPanel
 
 	@Override
 	public void updateInput(byte[] currIn) {
-		for (int i = 0; i < 16; i++) {
+		for (int mask = nonZeroOut; mask != 0; mask &= mask - 1) {
+			int i = Integer.numberOfTrailingZeros(mask);
 			currIn[i] = (byte) Math.max(currIn[i], out[i]);
 		}
 	}
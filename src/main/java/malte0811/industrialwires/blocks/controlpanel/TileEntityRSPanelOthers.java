@@ -29,6 +29,7 @@ import java.util.Arrays;
 
 @Optional.Interface(iface = "mrtjp.projectred.api.IBundledTile", modid = ProjectRedAPI.modIDCore)
 public class TileEntityRSPanelOthers extends TileEntityRSPanel implements IBundledTile {
+	private final byte[] inputBuffer = new byte[16];
 
 	@Override
 	public boolean canConnectBundled(int i) {
@@ -46,7 +47,8 @@ public class TileEntityRSPanelOthers extends TileEntityRSPanel implements IBundl
 
 	@Override
 	public void updateInput() {
-		byte[] data = new byte[16];
+		byte[] data = inputBuffer;
+		Arrays.fill(data, (byte) 0);
 		for (EnumFacing f:EnumFacing.VALUES) {
 			byte[] tmp = Compat.getBundledRS.run(world, pos, f);
 			if (tmp!=null) {
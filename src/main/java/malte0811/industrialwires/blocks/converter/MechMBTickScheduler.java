@@ -0,0 +1,73 @@
+/*
+ * This file is part of Industrial Wires.
+ * Copyright (C) 2016-2018 malte0811
+ * Industrial Wires is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * Industrial Wires is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with Industrial Wires.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package malte0811.industrialwires.blocks.converter;
+
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs TileEntityMechMB#tickEnergyBalance for all mechanical multiblocks in a dimension in parallel at the end of the
+ * world tick (enabled by IWConfig.MechConversion.parallelMultiblockTick). The server thread waits for all of them to
+ * finish, so nothing else can access the parts (e.g. through capabilities) in the meantime. The effects on the world
+ * are applied afterwards on the server thread.
+ */
+@Mod.EventBusSubscriber
+public final class MechMBTickScheduler {
+	private static final Map<Integer, List<TileEntityMechMB>> SCHEDULED = new HashMap<>();
+	private static ForkJoinPool pool;
+
+	private MechMBTickScheduler() {
+	}
+
+	static void schedule(TileEntityMechMB te) {
+		SCHEDULED.computeIfAbsent(te.getWorld().provider.getDimension(), d -> new ArrayList<>()).add(te);
+	}
+
+	@SubscribeEvent
+	public static void onWorldTick(TickEvent.WorldTickEvent ev) {
+		if (ev.phase == TickEvent.Phase.END && !ev.world.isRemote) {
+			List<TileEntityMechMB> scheduled = SCHEDULED.remove(ev.world.provider.getDimension());
+			if (scheduled != null) {
+				scheduled.removeIf(te -> te.isInvalid() || te.mechanical == null);
+				if (scheduled.size() > 1) {
+					getPool().submit(() -> scheduled.parallelStream().forEach(TileEntityMechMB::tickEnergyBalance)).join();
+				} else {
+					scheduled.forEach(TileEntityMechMB::tickEnergyBalance);
+				}
+				scheduled.forEach(TileEntityMechMB::commitEnergyBalance);
+			}
+		}
+	}
+
+	@SubscribeEvent
+	public static void onWorldUnload(WorldEvent.Unload ev) {
+		if (!ev.getWorld().isRemote) {
+			SCHEDULED.remove(ev.getWorld().provider.getDimension());
+		}
+	}
+
+	private static ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+		}
+		return pool;
+	}
+}
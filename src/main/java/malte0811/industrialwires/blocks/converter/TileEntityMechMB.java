@@ -25,13 +25,15 @@ import ic2.api.energy.tile.IEnergyAcceptor;
 import ic2.api.energy.tile.IEnergyEmitter;
 import ic2.api.energy.tile.IEnergySink;
 import ic2.api.energy.tile.IEnergySource;
+import malte0811.industrialwires.IWConfig;
 import malte0811.industrialwires.IndustrialWires;
 import malte0811.industrialwires.blocks.IBlockBoundsIW.IBlockBoundsDirectional;
 import malte0811.industrialwires.blocks.ISyncReceiver;
 import malte0811.industrialwires.blocks.TileEntityIWMultiblock;
 import malte0811.industrialwires.compat.Compat;
 import malte0811.industrialwires.mech_mb.*;
-import malte0811.industrialwires.network.MessageTileSyncIW;
+import malte0811.industrialwires.network.SyncSchema;
+import malte0811.industrialwires.network.TileSyncDispatcher;
 import malte0811.industrialwires.util.LocalSidedWorld;
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
@@ -78,6 +80,19 @@ public class TileEntityMechMB extends TileEntityIWMultiblock implements ITickabl
 	int[] offsets = null;
 
 	private int[][] electricalStartEnd = null;
+	// Scratch buffers for update, allocated in setMechanical
+	private double[] mechRequests;
+	private double[] available;
+	private double[] availableSim;
+	private Waveform[] availableWf;
+	private double[][] requested;
+	private double[] ins;
+	private double[] extracted;
+	private final Waveform[] availableWaveforms = new Waveform[Waveform.VALUES.length];
+	private final double[] availablePerWf = new double[Waveform.VALUES.length];
+	// Waveforms produced in each electrical section when its plan was made, and the waveform chosen for it
+	private Waveform[][] planInputs;
+	private Waveform[] plannedWaveform;
 
 	public MechEnergy energyState;
 	public boolean isLossless;
@@ -88,6 +103,8 @@ public class TileEntityMechMB extends TileEntityIWMultiblock implements ITickabl
 	private boolean firstTick = true;
 	// To allow changing the MB structure later on without resulting in dupes/conversion
 	private int structureVersion = 0;
+	// World time at which this was last saved, if it was loaded from disk
+	private long saveTime = -1;
 
 	@Override
 	public void update() {
@@ -95,6 +112,14 @@ public class TileEntityMechMB extends TileEntityIWMultiblock implements ITickabl
 		if (firstTick && !world.isRemote) {
 			Compat.loadIC2Tile.accept(this);
 			firstTick = false;
+			if (saveTime >= 0 && !isLogicDummy() && energyState != null) {
+				// Catch up on the decay while the multiblock was unloaded
+				long unloadedTicks = world.getTotalWorldTime() - saveTime;
+				if (unloadedTicks > 0) {
+					energyState.decaySpeed(unloadedTicks, isLossless);
+				}
+			}
+			saveTime = -1;
 		}
 		if (isLogicDummy() || mechanical == null || mechanical.length==0) {
 			return;
@@ -119,98 +144,62 @@ public class TileEntityMechMB extends TileEntityIWMultiblock implements ITickabl
 			part.createMEnergy(energyState);
 		}
 		double requestSum = 0;
-		IdentityHashMap<MechMBPart, Double> individualRequests = new IdentityHashMap<>();
-		for (MechMBPart part : mechanical) {
-			double eForPart = part.requestMEnergy(energyState);
+		for (int i = 0; i < mechanical.length; i++) {
+			double eForPart = mechanical[i].requestMEnergy(energyState);
 			requestSum += eForPart;
-			individualRequests.put(part, eForPart);
+			mechRequests[i] = eForPart;
 		}
 		double availableEnergy = energyState.getEnergy() / 5;//prevent energy transmission without movement
 		double factor = Math.min(availableEnergy / requestSum, 1);
 		energyState.extractEnergy(Math.min(requestSum, availableEnergy));
-		for (MechMBPart part : mechanical) {
-			part.insertMEnergy(factor * individualRequests.get(part));
+		for (int i = 0; i < mechanical.length; i++) {
+			mechanical[i].insertMEnergy(factor * mechRequests[i]);
 		}
-		Set<MechMBPart> failed = new HashSet<>();
+		Set<MechMBPart> failed = null;
 		for (MechMBPart part : mechanical) {
 			if (energyState.getSpeed() > part.getMaxSpeed()) {
+				if (failed == null) {
+					failed = new HashSet<>();
+				}
 				failed.add(part);
 			}
 		}
-		if (!failed.isEmpty()) {
+		if (failed != null) {
 			disassemble(failed);
 			return;
 		}
 
+		if (IWConfig.MechConversion.parallelMultiblockTick) {
+			MechMBTickScheduler.schedule(this);
+		} else {
+			tickEnergyBalance();
+			commitEnergyBalance();
+		}
+	}
+
+	/**
+	 * Electrical transfer and speed decay. Only uses the state of this multiblock and its parts, so it can be run for
+	 * multiple multiblocks in parallel while the server thread waits.
+	 */
+	void tickEnergyBalance() {
 		//Electrical
-		for (int[] section : electricalStartEnd) {
-			final int sectionLength = section[1] - section[0];
-			double[] available = new double[sectionLength];
-			Waveform[] availableWf = new Waveform[sectionLength];
-			boolean hasEnergy = false;
-			Set<Waveform> availableWaveforms = new HashSet<>();
-			for (int i = section[0]; i < section[1]; i++) {
-				IMBPartElectric electricalComp = ((IMBPartElectric) mechanical[i]);
-				Waveform localWf = electricalComp.getProduced(energyState).getForSpeed(energyState.getSpeed());
-				availableWf[i - section[0]] = localWf;
-				if (!localWf.isEnergyWaveform()) {
-					continue;
-				}
-				double availableLocal = electricalComp.getAvailableEEnergy(energyState);
-				available[i - section[0]] = availableLocal;
-				availableWaveforms.add(localWf);
-				if (availableLocal > 0) {
-					hasEnergy = true;
-				}
-			}
-			if (hasEnergy) {
-				List<Waveform> availableWfList = new ArrayList<>(availableWaveforms);
-				double[][] requested = new double[availableWfList.size()][sectionLength];
-				for (int i = 0; i < requested.length; i++) {
-					Waveform wf = availableWfList.get(i);
-					if (wf.isEnergyWaveform()) {
-						for (int j = 0; j < sectionLength; j++) {
-							requested[i][j] = ((IMBPartElectric) mechanical[j + section[0]]).requestEEnergy(wf, energyState);
-						}
-					}
-				}
-				int maxId = -1;
-				double maxTransferred = 0;
-				for (int i = 0; i < requested.length; i++) {
-					Waveform wf = availableWfList.get(i);
-					double transferred = transferElectric(section, Arrays.copyOf(available, sectionLength), availableWf, wf,
-							Arrays.copyOf(requested[i], sectionLength), true);
-					if (transferred > maxTransferred) {
-						maxTransferred = transferred;
-						maxId = i;
-					}
-				}
-				if (maxId < 0) {
-					double[] availablePerWf = new double[availableWaveforms.size()];
-					for (int i = 0; i < availableWf.length; i++) {
-						if (availableWf[i].isEnergyWaveform()) {
-							availablePerWf[availableWfList.indexOf(availableWf[i])] += available[i];
-						}
-					}
-					for (int i = 0; i < availablePerWf.length; i++) {
-						if (availablePerWf[i] > 0 && (maxId < 0 || availablePerWf[maxId] < availablePerWf[i])) {
-							maxId = i;
-						}
-					}
-				}
-				if (maxId >= 0) {
-					transferElectric(section, available, availableWf, availableWfList.get(maxId), requested[maxId], false);
-				}
-			}
+		for (int i = 0; i < electricalStartEnd.length; i++) {
+			transferInSection(i);
 		}
 
 		//General
 		energyState.decaySpeed(isLossless);
+	}
+
+	/**
+	 * The part of the tick after tickEnergyBalance that affects the world. Has to run on the server thread.
+	 */
+	void commitEnergyBalance() {
 		markDirty();
 		if (lastSyncedSpeed < energyState.getSpeed() * SYNC_THRESHOLD || lastSyncedSpeed > energyState.getSpeed() / SYNC_THRESHOLD) {
 			NBTTagCompound nbt = new NBTTagCompound();
 			nbt.setDouble(SPEED, energyState.getSpeed());
-			IndustrialWires.packetHandler.sendToDimension(new MessageTileSyncIW(this, nbt), world.provider.getDimension());
+			TileSyncDispatcher.sendToTracking(this, nbt, true);
 			lastSyncedSpeed = energyState.getSpeed();
 		}
 	}
@@ -241,24 +230,128 @@ public class TileEntityMechMB extends TileEntityIWMultiblock implements ITickabl
 		return part.getExtState(in);
 	}
 
+	/**
+	 * Transfers energy between the parts of an electrical section. The waveform that allows the highest transfer is
+	 * chosen by simulating a transfer for every waveform produced in the section. The result is kept as a plan and used
+	 * without a new search until the waveforms produced in the section change (this includes the speed crossing the
+	 * commutation or sync thresholds) or the planned waveform stops transferring energy.
+	 */
+	private void transferInSection(int sectionId) {
+		final int[] section = electricalStartEnd[sectionId];
+		final int sectionLength = section[1] - section[0];
+		final Waveform[] planInput = planInputs[sectionId];
+		boolean hasEnergy = false;
+		boolean inputChanged = false;
+		int wfCount = 0;
+		for (int i = section[0]; i < section[1]; i++) {
+			IMBPartElectric electricalComp = ((IMBPartElectric) mechanical[i]);
+			Waveform localWf = electricalComp.getProduced(energyState).getForSpeed(energyState.getSpeed());
+			availableWf[i - section[0]] = localWf;
+			if (planInput[i - section[0]] != localWf) {
+				planInput[i - section[0]] = localWf;
+				inputChanged = true;
+			}
+			available[i - section[0]] = 0;
+			if (!localWf.isEnergyWaveform()) {
+				continue;
+			}
+			double availableLocal = electricalComp.getAvailableEEnergy(energyState);
+			available[i - section[0]] = availableLocal;
+			if (indexOf(availableWaveforms, wfCount, localWf) < 0) {
+				availableWaveforms[wfCount] = localWf;
+				wfCount++;
+			}
+			if (availableLocal > 0) {
+				hasEnergy = true;
+			}
+		}
+		if (inputChanged) {
+			plannedWaveform[sectionId] = null;
+		}
+		if (!hasEnergy) {
+			return;
+		}
+		if (plannedWaveform[sectionId] != null) {
+			int planId = indexOf(availableWaveforms, wfCount, plannedWaveform[sectionId]);
+			fillRequests(section, planId);
+			double transferred = transferElectric(section, available, availableWf, availableWaveforms[planId],
+					requested[planId], false);
+			if (transferred <= 0) {
+				plannedWaveform[sectionId] = null;
+			}
+			return;
+		}
+		for (int i = 0; i < wfCount; i++) {
+			fillRequests(section, i);
+		}
+		int maxId = -1;
+		double maxTransferred = 0;
+		for (int i = 0; i < wfCount; i++) {
+			System.arraycopy(available, 0, availableSim, 0, sectionLength);
+			double transferred = transferElectric(section, availableSim, availableWf, availableWaveforms[i],
+					requested[i], true);
+			if (transferred > maxTransferred) {
+				maxTransferred = transferred;
+				maxId = i;
+			}
+		}
+		if (maxId < 0) {
+			Arrays.fill(availablePerWf, 0, wfCount, 0);
+			for (int i = 0; i < sectionLength; i++) {
+				if (availableWf[i].isEnergyWaveform()) {
+					availablePerWf[indexOf(availableWaveforms, wfCount, availableWf[i])] += available[i];
+				}
+			}
+			for (int i = 0; i < wfCount; i++) {
+				if (availablePerWf[i] > 0 && (maxId < 0 || availablePerWf[maxId] < availablePerWf[i])) {
+					maxId = i;
+				}
+			}
+		}
+		if (maxId >= 0) {
+			transferElectric(section, available, availableWf, availableWaveforms[maxId], requested[maxId], false);
+			if (maxTransferred > 0) {
+				plannedWaveform[sectionId] = availableWaveforms[maxId];
+			}
+		}
+	}
+
+	private void fillRequests(int[] section, int wfId) {
+		Waveform wf = availableWaveforms[wfId];
+		for (int j = 0; j < section[1] - section[0]; j++) {
+			requested[wfId][j] = ((IMBPartElectric) mechanical[j + section[0]]).requestEEnergy(wf, energyState);
+		}
+	}
+
+	private static int indexOf(Waveform[] waveforms, int count, Waveform wf) {
+		for (int i = 0; i < count; i++) {
+			if (waveforms[i].equals(wf)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
 	//return value is maximized to choose the waveform to use
+	//available is modified, requested is not. Only the first section[1]-section[0] entries of the arrays are used
 	private double transferElectric(int[] section, double[] available, Waveform[] availableWf, Waveform waveform, double[] requested, boolean simulate) {
+		final int sectionLength = section[1] - section[0];
 		double totalAvailable = 0;
 		double totalRequested = 0;
-		for (int i = 0; i < available.length; i++) {
+		for (int i = 0; i < sectionLength; i++) {
 			if (!availableWf[i].equals(waveform)) {
 				available[i] = 0;
 			}
 			totalRequested += requested[i];
 		}
-		for (int i = 0; i < available.length; i++) {
+		for (int i = 0; i < sectionLength; i++) {
 			if (available[i]>0) {
 				available[i] = Math.min(available[i], totalRequested-requested[i]);
 				totalAvailable += available[i];
 			}
 		}
-		double[] ins = new double[section[1]-section[0]];
-		double[] extracted = new double[section[1]-section[0]];
+		Arrays.fill(ins, 0, sectionLength, 0);
+		Arrays.fill(extracted, 0, sectionLength, 0);
 		if (totalAvailable>0) {
 			for (int i = section[0]; i < section[1]; i++) {
 				int i0 = i - section[0];
@@ -268,7 +361,7 @@ public class TileEntityMechMB extends TileEntityIWMultiblock implements ITickabl
 				if (extr == 0) {
 					continue;
 				}
-				for (int j = 0; j < section[1] - section[0]; j++) {
+				for (int j = 0; j < sectionLength; j++) {
 					if (j != i0) {
 						ins[j] += extr * (requested[j] / otherRequests);
 					}
@@ -288,7 +381,7 @@ public class TileEntityMechMB extends TileEntityIWMultiblock implements ITickabl
 			}
 		}
 		double totalTransf = 0;
-		for (int i = 0; i < section[1] - section[0]; i++) {
+		for (int i = 0; i < sectionLength; i++) {
 			totalTransf += Math.abs(ins[i]-extracted[i]);
 		}
 		return totalTransf;
@@ -307,6 +400,9 @@ public class TileEntityMechMB extends TileEntityIWMultiblock implements ITickabl
 		}
 		out.setInteger(VERSION, structureVersion);
 		out.setBoolean(LOSSLESS, isLossless);
+		if (!updatePacket && world != null) {
+			out.setLong(SAVE_TIME, world.getTotalWorldTime());
+		}
 	}
 
 	@Override
@@ -325,6 +421,9 @@ public class TileEntityMechMB extends TileEntityIWMultiblock implements ITickabl
 		}
 		structureVersion = in.getInteger(VERSION);
 		isLossless = in.getBoolean(LOSSLESS);
+		if (!updatePacket && in.hasKey(SAVE_TIME, Constants.NBT.TAG_LONG)) {
+			saveTime = in.getLong(SAVE_TIME);
+		}
 		rBB = null;
 		aabb = null;
 	}
@@ -354,6 +453,22 @@ public class TileEntityMechMB extends TileEntityIWMultiblock implements ITickabl
 			electrical.add(new int[]{lastEStart, mechanical.length});
 		}
 		electricalStartEnd = electrical.toArray(new int[electrical.size()][]);
+		int maxSectionLength = 0;
+		for (int[] section : electricalStartEnd) {
+			maxSectionLength = Math.max(maxSectionLength, section[1] - section[0]);
+		}
+		mechRequests = new double[mechanical.length];
+		available = new double[maxSectionLength];
+		availableSim = new double[maxSectionLength];
+		availableWf = new Waveform[maxSectionLength];
+		requested = new double[Waveform.VALUES.length][maxSectionLength];
+		ins = new double[maxSectionLength];
+		extracted = new double[maxSectionLength];
+		planInputs = new Waveform[electricalStartEnd.length][];
+		for (int i = 0; i < electricalStartEnd.length; i++) {
+			planInputs[i] = new Waveform[electricalStartEnd[i][1] - electricalStartEnd[i][0]];
+		}
+		plannedWaveform = new Waveform[electricalStartEnd.length];
 		if (energyState!=null) {
 			energyState.invalid = true;
 		}
@@ -409,6 +524,11 @@ public class TileEntityMechMB extends TileEntityIWMultiblock implements ITickabl
 		energyState.setTargetSpeed(nbt.getDouble(SPEED));
 	}
 
+	@Override
+	public SyncSchema getSyncSchema() {
+		return SyncSchema.MECH_MB;
+	}
+
 	private AxisAlignedBB rBB;
 
 	@Nonnull
@@ -30,7 +30,8 @@ import malte0811.industrialwires.blocks.IBlockBoundsIW;
 import malte0811.industrialwires.blocks.IHasDummyBlocksIW;
 import malte0811.industrialwires.blocks.ISyncReceiver;
 import malte0811.industrialwires.compat.Compat;
-import malte0811.industrialwires.network.MessageTileSyncIW;
+import malte0811.industrialwires.network.SyncSchema;
+import malte0811.industrialwires.network.TileSyncDispatcher;
 import malte0811.industrialwires.util.Beziers;
 import malte0811.industrialwires.util.ConversionUtil;
 import malte0811.industrialwires.util.JouleEnergyStorage;
@@ -80,6 +81,10 @@ public class TileEntityJacobsLadder extends TileEntityIEBase implements ITickabl
 	// movement of the controls in blocks/tick
 	public Vec3d[] controlMovement;
 	private double t = 0;
+	// Client-side: the positions of the inner controls for every tick of the current arc, see initArc
+	private double[] keyframes;
+	private int keyframeCount;
+	private int keyframe;
 	private int dummy = 0;
 	public int timeTillActive = -1;
 	private double tStep = 0;
@@ -137,7 +142,7 @@ public class TileEntityJacobsLadder extends TileEntityIEBase implements ITickabl
 				t = 0;
 				timeTillActive = size.delay;
 				tStep = 1D / (int) (.875 * size.tickToTop + world.rand.nextInt(size.tickToTop / 4));
-				IndustrialWires.packetHandler.sendToAll(new MessageTileSyncIW(this, writeArcStarter()));
+				TileSyncDispatcher.sendToTracking(this, writeArcStarter());
 			} else if (timeTillActive == 0 && t < 1) {
 				double extracted = energy.extract(consumtionJoule, 1, true);
 				if (extracted >= consumtionJoule) {
@@ -146,7 +151,7 @@ public class TileEntityJacobsLadder extends TileEntityIEBase implements ITickabl
 					timeTillActive = -1 - size.delay;
 					NBTTagCompound nbt = new NBTTagCompound();
 					nbt.setBoolean("cancel", true);
-					IndustrialWires.packetHandler.sendToAll(new MessageTileSyncIW(this, nbt));
+					TileSyncDispatcher.sendToTracking(this, nbt);
 				}
 			} else if (timeTillActive < -1) {
 				//delay after energy was cut
@@ -157,8 +162,11 @@ public class TileEntityJacobsLadder extends TileEntityIEBase implements ITickabl
 				for (int i = 0; i < size.arcPoints; i++) {
 					controls[i] = controls[i].add(controlMovement[i]);
 				}
+				int k = Math.min(keyframe, keyframeCount - 1);
 				for (int i = 1; i < size.arcPoints - 1; i++) {
-					controlMovement[i] = Beziers.getPoint(t, controlControls[i - 1]).subtract(controls[i]);
+					int offset = 3 * ((i - 1) * keyframeCount + k);
+					controlMovement[i] = new Vec3d(keyframes[offset] - controls[i].x, keyframes[offset + 1] - controls[i].y,
+							keyframes[offset + 2] - controls[i].z);
 				}
 				if (soundPhase < 0) {
 					IndustrialWires.proxy.playJacobsLadderSound(this, 0, soundPos);
@@ -179,6 +187,7 @@ public class TileEntityJacobsLadder extends TileEntityIEBase implements ITickabl
 			timeTillActive--;
 		} else if (timeTillActive == 0 && t < 1) {
 			t += tStep;
+			keyframe++;
 			if (salt > 0) {
 				salt -= 1D / (20 * 20);//20 seconds per item of salt
 			} else if (salt < 0) {
@@ -196,9 +205,24 @@ public class TileEntityJacobsLadder extends TileEntityIEBase implements ITickabl
 		controlMovement[0] = new Vec3d(-(size.topDistance - size.bottomDistance) / (2 * size.tickToTop), size.height / size.tickToTop, 0);
 		controlMovement[size.arcPoints - 1] = new Vec3d((size.topDistance - size.bottomDistance) / (2 * size.tickToTop), size.height / size.tickToTop, 0);
 		t = 0;
+		keyframe = 0;
+		// tStep is always 1/(number of ticks per arc)
+		Beziers.BasisTable basis = Beziers.getTable(size.movementPoints - 1, (int) Math.round(1 / tStep));
+		keyframeCount = basis.getSteps() + 1;
+		int innerPoints = size.arcPoints - 2;
+		if (keyframes == null || keyframes.length < 3 * innerPoints * keyframeCount) {
+			keyframes = new double[3 * innerPoints * keyframeCount];
+		}
+		for (int i = 0; i < innerPoints; i++) {
+			for (int k = 0; k < keyframeCount; k++) {
+				basis.getPoint(k, controlControls[i], keyframes, 3 * (i * keyframeCount + k));
+			}
+		}
 		for (int i = 1; i < size.arcPoints - 1; i++) {
-			controls[i] = Beziers.getPoint(0, controlControls[i - 1]);
-			controlMovement[i] = Beziers.getPoint(tStep, controlControls[i - 1]).subtract(controls[i]);
+			controls[i] = controlControls[i - 1][0];
+			int offset = 3 * ((i - 1) * keyframeCount + 1);
+			controlMovement[i] = new Vec3d(keyframes[offset] - controls[i].x, keyframes[offset + 1] - controls[i].y,
+					keyframes[offset + 2] - controls[i].z);
 		}
 		double soundX = pos.getX() + .5;
 		double soundY = pos.getY() + .5 * size.dummyCount + size.heightOffset;
@@ -330,6 +354,11 @@ public class TileEntityJacobsLadder extends TileEntityIEBase implements ITickabl
 		}
 	}
 
+	@Override
+	public SyncSchema getSyncSchema() {
+		return SyncSchema.JACOBS_LADDER;
+	}
+
 	private boolean isActive() {
 		if (isDummy()) {
 			TileEntity master = world.getTileEntity(pos.down(dummy));
@@ -382,7 +411,7 @@ public class TileEntityJacobsLadder extends TileEntityIEBase implements ITickabl
 				NBTTagCompound update = new NBTTagCompound();
 				update.setDouble("salt", salt);
 				markDirty();
-				IndustrialWires.packetHandler.sendToAll(new MessageTileSyncIW(this, update));
+				TileSyncDispatcher.sendToTracking(this, update);
 			}
 			return true;
 		}
@@ -37,10 +37,12 @@ import malte0811.industrialwires.blocks.IWProperties;
 import malte0811.industrialwires.blocks.TileEntityIWMultiblock;
 import malte0811.industrialwires.hv.IMarxTarget;
 import malte0811.industrialwires.hv.MarxOreHandler;
-import malte0811.industrialwires.network.MessageTileSyncIW;
+import malte0811.industrialwires.network.SyncSchema;
+import malte0811.industrialwires.network.TileSyncDispatcher;
 import malte0811.industrialwires.util.ConversionUtil;
 import malte0811.industrialwires.util.JouleEnergyStorage;
 import malte0811.industrialwires.util.MiscUtils;
+import malte0811.industrialwires.wires.EnergyRoutingCache;
 import malte0811.industrialwires.wires.EnergyType;
 import malte0811.industrialwires.wires.MixedWireType;
 import net.minecraft.block.Block;
@@ -99,6 +101,8 @@ public class TileEntityMarx extends TileEntityIWMultiblock implements ITickable,
 	private double timeFactorBottom;
 	private final static double CAPACITANCE = 1.6e-6;
 	private final static double MAX_VOLTAGE = 250e3;
+	// Far below the resolution of the redstone outputs (~1kV)
+	private final static double CONVERGED_VOLTAGE = 1;
 
 	public IWProperties.MarxType type = IWProperties.MarxType.NO_MODEL;
 	private int stageCount = 0;
@@ -112,6 +116,9 @@ public class TileEntityMarx extends TileEntityIWMultiblock implements ITickable,
 	private boolean loaded = false;
 	private double leftover;
 	private long lastUpdate = -1;
+	// Set once all caps have (almost) reached the voltage the bottom cap is charged to. Charging is skipped until
+	// anything changes that could affect that voltage: the control signals, the stored energy or a discharge.
+	private boolean sleeping = false;
 
 	TileEntityMarx(EnumFacing facing, IWProperties.MarxType type, boolean mirrored) {
 		this.facing = facing;
@@ -258,49 +265,70 @@ public class TileEntityMarx extends TileEntityIWMultiblock implements ITickable,
 		if (!world.isRemote&&type== IWProperties.MarxType.BOTTOM) {
 			if (capVoltages == null || capVoltages.length != stageCount) {
 				capVoltages = new double[stageCount];
+				sleeping = false;
 			}
-			final double oldTopVoltage = capVoltages[stageCount - 1];
-			final double oldBottomVoltage = capVoltages[0];
-			for (int i = stageCount - 1; i > 0; i--) {
-				double oldVoltage = capVoltages[i];
-				double u0 = capVoltages[i - 1];
-				capVoltages[i] = u0 - (u0 - oldVoltage) * timeFactor;
-				capVoltages[i - 1] -= capVoltages[i] - oldVoltage;
-			}
-			//charge bottom cap from storage
-			double setVoltage = MAX_VOLTAGE * voltageControl / 255F;
-			double u0 = Math.min(setVoltage, 10 * storage.getEnergyStoredJ());
-			if (u0 < 0) {
-				u0 = 0;
-			}
-			if (u0 < capVoltages[0] && setVoltage > capVoltages[0]) {
-				u0 = capVoltages[0];
-			}
-			double tmp = u0 - (u0 - oldBottomVoltage) * timeFactorBottom;
-			double energyUsed = .5 * (tmp * tmp - oldBottomVoltage * oldBottomVoltage) * CAPACITANCE;
-			if (energyUsed > 0 && storage.extract(energyUsed, 1, true) == energyUsed) {// energyUsed can be negative when discharging the caps
-				storage.extract(energyUsed, 1, false);
-				capVoltages[0] = tmp;
-			} else if (energyUsed <= 0) {
-				capVoltages[0] = tmp;
-			}
-			int delta = (int) (lastUpdate+15-world.getTotalWorldTime());
-			if (Math.abs(getRSSignalFromVoltage(oldBottomVoltage)-getRSSignalFromVoltage(capVoltages[0]))>delta) {
-				net.updateValues();
-			} else if (Math.abs(getRSSignalFromVoltage(oldTopVoltage)-getRSSignalFromVoltage(capVoltages[stageCount-1]))>delta) {
-				net.updateValues();
-			}
-			if (capVoltages[0] > MAX_VOLTAGE * 14.5 / 15) {
-				state = FiringState.NEXT_TICK;
+			if (!sleeping) {
+				chargeCaps();
 			}
 		}
 		leftover = storage.getMaxInPerTick();
 	}
 
+	/**
+	 * One step of the RC charging ladder: Each cap is charged from the one below it, the bottom cap is charged from the
+	 * storage up to the set voltage.
+	 */
+	private void chargeCaps() {
+		final double oldTopVoltage = capVoltages[stageCount - 1];
+		final double oldBottomVoltage = capVoltages[0];
+		for (int i = stageCount - 1; i > 0; i--) {
+			double oldVoltage = capVoltages[i];
+			double u0 = capVoltages[i - 1];
+			capVoltages[i] = u0 - (u0 - oldVoltage) * timeFactor;
+			capVoltages[i - 1] -= capVoltages[i] - oldVoltage;
+		}
+		//charge bottom cap from storage
+		double setVoltage = MAX_VOLTAGE * voltageControl / 255F;
+		double u0 = Math.min(setVoltage, 10 * storage.getEnergyStoredJ());
+		if (u0 < 0) {
+			u0 = 0;
+		}
+		if (u0 < capVoltages[0] && setVoltage > capVoltages[0]) {
+			u0 = capVoltages[0];
+		}
+		double tmp = u0 - (u0 - oldBottomVoltage) * timeFactorBottom;
+		double energyUsed = .5 * (tmp * tmp - oldBottomVoltage * oldBottomVoltage) * CAPACITANCE;
+		if (energyUsed > 0 && storage.extract(energyUsed, 1, true) == energyUsed) {// energyUsed can be negative when discharging the caps
+			storage.extract(energyUsed, 1, false);
+			capVoltages[0] = tmp;
+		} else if (energyUsed <= 0) {
+			capVoltages[0] = tmp;
+		}
+		// At most one update per 15 ticks for small changes, but never one if nothing changed
+		int delta = Math.max(0, (int) (lastUpdate+15-world.getTotalWorldTime()));
+		if (Math.abs(getRSSignalFromVoltage(oldBottomVoltage)-getRSSignalFromVoltage(capVoltages[0]))>delta) {
+			net.updateValues();
+		} else if (Math.abs(getRSSignalFromVoltage(oldTopVoltage)-getRSSignalFromVoltage(capVoltages[stageCount-1]))>delta) {
+			net.updateValues();
+		}
+		if (capVoltages[0] > MAX_VOLTAGE * 14.5 / 15) {
+			state = FiringState.NEXT_TICK;
+		} else if (state == FiringState.CHARGING && Math.abs(u0 - capVoltages[0]) < CONVERGED_VOLTAGE) {
+			double min = capVoltages[0];
+			double max = capVoltages[0];
+			for (int i = 1; i < stageCount; i++) {
+				min = Math.min(min, capVoltages[i]);
+				max = Math.max(max, capVoltages[i]);
+			}
+			sleeping = max - min < CONVERGED_VOLTAGE;
+		}
+	}
+
 	private void fire() {
 		if (!world.isRemote) {
 			//calculate energy
 			double energyStored = 0;
+			sleeping = false;
 			boolean failed = capVoltages[0]<MAX_VOLTAGE*.5;
 			double totalVoltage = 0;
 			for (int i = 0;i<stageCount;i++) {
@@ -324,7 +352,7 @@ public class TileEntityMarx extends TileEntityIWMultiblock implements ITickable,
 				handleOreProcessing(energyStored);//After entities to prevent killing the newly dropped items
 			}
 			data.setDouble("energy", energyStored);
-			IndustrialWires.packetHandler.sendToDimension(new MessageTileSyncIW(this, data), world.provider.getDimension());
+			TileSyncDispatcher.sendToTracking(this, data);
 		}
 	}
 
@@ -437,6 +465,11 @@ public class TileEntityMarx extends TileEntityIWMultiblock implements ITickable,
 		state = FiringState.NEXT_TICK;
 	}
 
+	@Override
+	public SyncSchema getSyncSchema() {
+		return SyncSchema.MARX;
+	}
+
 	private void genDischarge(float energy, int seed) {
 		if (dischargeData==null) {
 			dischargeData = new Discharge(stageCount);
@@ -560,6 +593,9 @@ public class TileEntityMarx extends TileEntityIWMultiblock implements ITickable,
 		if (master!=null && amount>0) {
 			double ret = master.storage.insert(amount, ConversionUtil.joulesPerIf(), simulate, master.leftover);
 			master.leftover -= ret;
+			if (!simulate && ret > 0) {
+				master.sleeping = false;
+			}
 			return (int) ret;
 		} else {
 			return 0;
@@ -573,6 +609,9 @@ public class TileEntityMarx extends TileEntityIWMultiblock implements ITickable,
 			double ret = master.storage.insert(joules, 1, simulate, master.leftover);
 			if (!simulate) {
 				master.leftover -= ret;
+				if (ret > 0) {
+					master.sleeping = false;
+				}
 			}
 			return joules -ret;
 		} else {
@@ -603,6 +642,8 @@ public class TileEntityMarx extends TileEntityIWMultiblock implements ITickable,
 		hasConnection = true;
 		if (WireType.REDSTONE_CATEGORY.equals(cableType.getCategory()))
 			RedstoneWireNetwork.updateConnectors(pos, world, getNetwork());
+		else
+			EnergyRoutingCache.invalidate(world);
 	}
 
 	@Override
@@ -623,6 +664,8 @@ public class TileEntityMarx extends TileEntityIWMultiblock implements ITickable,
 	@Override
 	public void removeCable(ImmersiveNetHandler.Connection connection) {
 		hasConnection = false;
+		if (getRight()!=0)
+			EnergyRoutingCache.invalidate(world);
 		if(world != null)
 		{
 			IBlockState state = world.getBlockState(pos);
@@ -654,6 +697,16 @@ public class TileEntityMarx extends TileEntityIWMultiblock implements ITickable,
 		super.invalidate();
 		if (world.isRemote && !IndustrialWires.proxy.isSingleplayer())
 			ImmersiveNetHandler.INSTANCE.clearConnectionsOriginatingFrom(pos, world);
+		if (hasConnection)
+			EnergyRoutingCache.invalidate(world);
+	}
+
+	@Override
+	public void onChunkUnload()
+	{
+		super.onChunkUnload();
+		if (hasConnection)
+			EnergyRoutingCache.invalidate(world);
 	}
 
 	@Override
@@ -682,6 +735,7 @@ public class TileEntityMarx extends TileEntityIWMultiblock implements ITickable,
 	public void onChange() {
 		TileEntityMarx master = masterOr(this, this);
 		master.voltageControl = (master.net.channelValues[WHITE.getMetadata()]<<4)|master.net.channelValues[YELLOW.getMetadata()];
+		master.sleeping = false;
 		if (master.net.channelValues[LIGHT_BLUE.getMetadata()]!=0) {
 			master.tryTriggeredDischarge();
 		}
@@ -718,6 +772,7 @@ public class TileEntityMarx extends TileEntityIWMultiblock implements ITickable,
 		rcTimeConst = 5D/stageCount;
 		timeFactor = Math.exp(-1/(20*rcTimeConst));
 		timeFactorBottom = Math.exp(-1 / (20 * rcTimeConst * 2 / 3));
+		sleeping = false;
 		collisionAabb = null;
 		renderAabb = null;
 	}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of Industrial Wires.
+ * Copyright (C) 2016-2018 malte0811
+ * Industrial Wires is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * Industrial Wires is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with Industrial Wires.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package malte0811.industrialwires.blocks.wire;
+
+import blusunrize.immersiveengineering.api.energy.wires.IImmersiveConnectable;
+import blusunrize.immersiveengineering.api.energy.wires.ImmersiveNetHandler;
+import blusunrize.immersiveengineering.api.energy.wires.ImmersiveNetHandler.Connection;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import java.util.*;
+
+/**
+ * Overloads every wire in the network of a broken connector and blows up all energy outputs in it. The network is
+ * walked through IE's connection map with a limited number of nodes per tick, and all broken connectors in a network
+ * share one cascade instead of each walking the network on its own. Active cascades are advanced at the end of each
+ * world tick until they are done.
+ * The wires are only overloaded once the whole network is known, all in the same tick, so IE burns them together and
+ * burnt wires can't cut the walk short. EnergyRoutingCache isn't used to find the network: It only knows the wires on
+ * paths between mixed connectors and energy outputs, not relays, dead ends or wires behind connectors that don't pass
+ * energy, so some wires wouldn't be overloaded.
+ */
+@Mod.EventBusSubscriber
+public final class OverloadCascade {
+	private static final int NODES_PER_TICK = 256;
+	private static final Map<Integer, List<OverloadCascade>> ACTIVE = new HashMap<>();
+
+	private final Deque<BlockPos> open = new ArrayDeque<>();
+	private final Set<BlockPos> closed = new HashSet<>();
+	private final List<BlockPos> found = new ArrayList<>();
+	private final Set<Connection> wires = new LinkedHashSet<>();
+	private int exploded = 0;
+
+	private OverloadCascade(BlockPos start) {
+		open.push(start);
+		closed.add(start);
+		found.add(start);
+	}
+
+	/**
+	 * Called every tick by broken connectors. Starts a new cascade if the connector isn't part of an active one yet.
+	 */
+	static void start(World world, BlockPos pos) {
+		List<OverloadCascade> active = ACTIVE.computeIfAbsent(world.provider.getDimension(), d -> new ArrayList<>());
+		for (OverloadCascade c : active) {
+			if (c.closed.contains(pos)) {
+				return;
+			}
+		}
+		active.add(new OverloadCascade(pos));
+	}
+
+	@SubscribeEvent
+	public static void onWorldTick(TickEvent.WorldTickEvent ev) {
+		if (ev.phase==TickEvent.Phase.END && !ev.world.isRemote) {
+			List<OverloadCascade> active = ACTIVE.get(ev.world.provider.getDimension());
+			if (active!=null) {
+				// Copied since explosions can break more connectors, which start new cascades
+				for (OverloadCascade cascade : new ArrayList<>(active)) {
+					if (cascade.step(ev.world)) {
+						active.remove(cascade);
+					}
+				}
+				if (active.isEmpty()) {
+					ACTIVE.remove(ev.world.provider.getDimension());
+				}
+			}
+		}
+	}
+
+	@SubscribeEvent
+	public static void onWorldUnload(WorldEvent.Unload ev) {
+		if (!ev.getWorld().isRemote) {
+			ACTIVE.remove(ev.getWorld().provider.getDimension());
+		}
+	}
+
+	/**
+	 * @return true if the cascade is done
+	 */
+	private boolean step(World world) {
+		int budget = NODES_PER_TICK;
+		if (!open.isEmpty()) {
+			while (!open.isEmpty() && budget > 0) {
+				BlockPos next = open.pop();
+				budget--;
+				Set<Connection> conns = ImmersiveNetHandler.INSTANCE.getConnections(world, next);
+				if (conns!=null) {
+					for (Connection c:conns) {
+						wires.add(c);
+						if (closed.add(c.end)) {
+							open.push(c.end);
+							found.add(c.end);
+						}
+					}
+				}
+			}
+			if (!open.isEmpty()) {
+				return false;
+			}
+			HashMap<Connection, Integer> transferedPerConn = ImmersiveNetHandler.INSTANCE.getTransferedRates(world.provider.getDimension());
+			for (Connection c:wires) {
+				transferedPerConn.put(c, 2*c.cableType.getTransferRate());
+			}
+			wires.clear();
+		}
+		while (exploded < found.size() && budget > 0) {
+			BlockPos p = found.get(exploded);
+			exploded++;
+			budget--;
+			TileEntity tile = world.getTileEntity(p);
+			if (tile instanceof IImmersiveConnectable && ((IImmersiveConnectable) tile).isEnergyOutput()) {
+				world.createExplosion(null, p.getX()+.5, p.getY()+.5, p.getZ()+.5,
+						3, true);
+			}
+		}
+		return exploded==found.size();
+	}
+}
@@ -14,10 +14,8 @@
  */
 package malte0811.industrialwires.blocks.wire;
 
-import blusunrize.immersiveengineering.api.ApiUtils;
 import blusunrize.immersiveengineering.api.TargetingInfo;
 import blusunrize.immersiveengineering.api.energy.wires.*;
-import blusunrize.immersiveengineering.api.energy.wires.ImmersiveNetHandler.AbstractConnection;
 import blusunrize.immersiveengineering.api.energy.wires.ImmersiveNetHandler.Connection;
 import blusunrize.immersiveengineering.common.blocks.IEBlockInterfaces.IDirectionalTile;
 import ic2.api.energy.tile.IEnergyAcceptor;
@@ -31,6 +29,8 @@ import malte0811.industrialwires.blocks.IBlockBoundsIW;
 import malte0811.industrialwires.compat.Compat;
 import malte0811.industrialwires.util.ConversionUtil;
 import malte0811.industrialwires.util.MiscUtils;
+import malte0811.industrialwires.wires.EnergyRoutingCache;
+import malte0811.industrialwires.wires.EnergyRoutingCache.Route;
 import malte0811.industrialwires.wires.EnergyType;
 import malte0811.industrialwires.wires.MixedWireType;
 import net.minecraft.entity.EntityLivingBase;
@@ -79,6 +79,10 @@ public class TileEntityIC2ConnectorTin extends TileEntityImmersiveConnectable im
 	private final int tier;
 	private final double relayOffset;
 	private final double connOffset;
+	// Reused by transferPowerToNet to avoid allocating every tick
+	private Route[] scratchRoutes = new Route[0];
+	private IMixedConnector[] scratchOutputs = new IMixedConnector[0];
+	private double[] scratchExtract = new double[0];
 
 	protected TileEntityIC2ConnectorTin(boolean relay, MixedWireType type, int tier, double relayLength, double connLength) {
 		this.relay = relay;
@@ -109,30 +113,7 @@ public class TileEntityIC2ConnectorTin extends TileEntityImmersiveConnectable im
 	public void update() {
 		if (!world.isRemote) {
 			if (shouldBreak) {
-				Deque<BlockPos> open = new ArrayDeque<>();
-				open.push(pos);
-				Set<BlockPos> closed = new HashSet<>();
-				closed.add(pos);
-				while (!open.isEmpty()) {
-					BlockPos next = open.pop();
-					Set<Connection> conns = ImmersiveNetHandler.INSTANCE.getConnections(world, next);
-					if (conns!=null) {
-						for (Connection c:conns) {
-							ImmersiveNetHandler.INSTANCE.getTransferedRates(world.provider.getDimension())
-									.put(c, 2*c.cableType.getTransferRate());
-							if (closed.add(c.end)) {
-								open.push(c.end);
-							}
-						}
-					}
-				}
-				for (BlockPos p:closed) {
-					TileEntity tile = world.getTileEntity(p);
-					if (tile instanceof IImmersiveConnectable && ((IImmersiveConnectable) tile).isEnergyOutput()) {
-						world.createExplosion(null, p.getX()+.5, p.getY()+.5, p.getZ()+.5,
-								3, true);
-					}
-				}
+				OverloadCascade.start(world, pos);
 				return;
 			}
 			if (externalInputInTick ==0 && potentialIEInputInTick == 0 && bufferToNet == 0 && bufferToMachine == 0) {
@@ -155,11 +136,15 @@ public class TileEntityIC2ConnectorTin extends TileEntityImmersiveConnectable im
 			}
 			potentialIEInputInTick = 0;
 			actualIEInputInTick = 0;
-			if (bufferToNet > EPS) {
-				transferPowerToNet();
-			}
-			if (bufferToNet >EPS) {
-				notifyAvailableEnergy(bufferToNet);
+			if (bufferToNet > EPS && IWConfig.wireNetSolver) {
+				WireNetEnergySolver.addSource(this);
+			} else {
+				if (bufferToNet > EPS) {
+					transferPowerToNet();
+				}
+				if (bufferToNet > EPS) {
+					notifyAvailableEnergy(bufferToNet);
+				}
 			}
 			if (bufferToMachine > EPS && energyType==FE_AC) {
 				transferPowerToFEMachine();
@@ -168,52 +153,76 @@ public class TileEntityIC2ConnectorTin extends TileEntityImmersiveConnectable im
 	}
 
 	private void transferPowerToNet() {
-		Set<AbstractConnection> conns = ImmersiveNetHandler.INSTANCE.getIndirectEnergyConnections(pos, world, true);
-		Map<AbstractConnection, Pair<IMixedConnector, Double>> maxOutputs = new HashMap<>();
+		List<Route> routes = EnergyRoutingCache.getRoutes(world, pos);
+		if (scratchRoutes.length < routes.size()) {
+			scratchRoutes = new Route[routes.size()];
+			scratchOutputs = new IMixedConnector[routes.size()];
+			scratchExtract = new double[routes.size()];
+		}
+		int outputCount = 0;
 		double outputMax = Math.min(bufferToNet, maxToNet);
 		double sum = 0;
-		for (AbstractConnection c : conns) {
-			if (c.isEnergyOutput) {
-				IImmersiveConnectable iic = ApiUtils.toIIC(c.end, world);
-				if (iic instanceof IMixedConnector) {
+		for (Route r : routes) {
+			if (r.connection.isEnergyOutput) {
+				IMixedConnector iic = r.getMixedEnd(world);
+				if (iic != null) {
 					double extract =
-							outputMax - ((IMixedConnector) iic).insertEnergy(outputMax, true, energyType);
+							outputMax - iic.insertEnergy(outputMax, true, energyType);
 					if (extract > EPS) {
-						maxOutputs.put(c, new ImmutablePair<>((IMixedConnector) iic, extract));
+						scratchRoutes[outputCount] = r;
+						scratchOutputs[outputCount] = iic;
+						scratchExtract[outputCount] = extract;
+						outputCount++;
 						sum += extract;
 					}
 				}
 			}
 		}
 		if (sum > EPS) {
-			HashMap<Connection, Integer> transferedPerConn = ImmersiveNetHandler.INSTANCE.getTransferedRates(world.provider.getDimension());
-			for (Map.Entry<AbstractConnection, Pair<IMixedConnector, Double>> entry : maxOutputs.entrySet()) {
-				Pair<IMixedConnector, Double> p = entry.getValue();
-				AbstractConnection c = entry.getKey();
-				double out = outputMax * p.getRight() / sum;
-				double loss = energyType.getLoss(getAverageLossRate(c), bufferToNet, out);
+			for (int i = 0; i < outputCount; i++) {
+				Route r = scratchRoutes[i];
+				double out = outputMax * scratchExtract[i] / sum;
+				double loss = energyType.getLoss(r.getLossRate(energyType), bufferToNet, out);
 				out = Math.min(out, bufferToNet -loss);
 				if (out<=0)
 					continue;
-				double inserted = out - p.getLeft().insertEnergy(out, false, energyType);
+				double inserted = out - scratchOutputs[i].insertEnergy(out, false, energyType);
 				double energyAtConn = inserted + loss;
 				bufferToNet -= energyAtConn;
-				float intermediaryLoss = 0;
-				HashSet<IImmersiveConnectable> passedConnectors = new HashSet<>();
-				for (Connection sub : c.subConnections) {
-					int transferredPerCon = transferedPerConn.getOrDefault(sub, 0);
-					energyAtConn -= sub.cableType.getLossRatio() * sub.length;
-					double wireLoad = energyAtConn/(energyType==FE_AC?IWConfig.wireRatio:1);
-					transferedPerConn.put(sub, (int) (transferredPerCon + wireLoad));
-					IImmersiveConnectable subStart = ApiUtils.toIIC(sub.start, world);
-					IImmersiveConnectable subEnd = ApiUtils.toIIC(sub.end, world);
-					if (subStart != null && passedConnectors.add(subStart))
-						subStart.onEnergyPassthrough((int) (inserted - inserted * intermediaryLoss));
-					if (subEnd != null && passedConnectors.add(subEnd))
-						subEnd.onEnergyPassthrough((int) (inserted - inserted * intermediaryLoss));
-				}
+				accountWireLoad(r, energyAtConn, inserted);
 			}
 		}
+		// Don't keep connectors that may be unloaded soon
+		Arrays.fill(scratchOutputs, 0, outputCount, null);
+	}
+
+	void accountWireLoad(Route r, double energyAtConn, double inserted) {
+		float intermediaryLoss = 0;
+		r.addWireLoad(world, energyAtConn, energyType==FE_AC?IWConfig.wireRatio:1,
+				(int) (inserted - inserted * intermediaryLoss));
+	}
+
+	// Used by WireNetEnergySolver
+	double getNetOutputMax() {
+		return Math.min(bufferToNet, maxToNet);
+	}
+
+	double getBufferToNet() {
+		return bufferToNet;
+	}
+
+	void extractToNet(double joules) {
+		bufferToNet -= joules;
+	}
+
+	EnergyType getEnergyType() {
+		return energyType;
+	}
+
+	void afterNetTransfer() {
+		if (bufferToNet > EPS) {
+			notifyAvailableEnergy(bufferToNet);
+		}
 	}
 
 	private void transferPowerToFEMachine() {
@@ -231,40 +240,26 @@ public class TileEntityIC2ConnectorTin extends TileEntityImmersiveConnectable im
 
 	private void notifyAvailableEnergy(double storedNew)
 	{
-		Set<AbstractConnection> outputs = ImmersiveNetHandler.INSTANCE.getIndirectEnergyConnections(pos, world, true);
-		for(AbstractConnection con : outputs)
+		List<Route> outputs = EnergyRoutingCache.getRoutes(world, pos);
+		for(Route r : outputs)
 		{
-			IImmersiveConnectable end = ApiUtils.toIIC(con.end, world);
-			if(con.cableType!=null && end!=null && end.allowEnergyToPass(null))
+			IImmersiveConnectable end = r.getEnd(world);
+			if(r.connection.cableType!=null && end!=null && end.allowEnergyToPass(null))
 			{
-				Pair<Float, Consumer<Float>> e = getEnergyForConnection(con, storedNew);
+				Pair<Float, Consumer<Float>> e = getEnergyForConnection(r.averageLossRate, storedNew);
 				end.addAvailableEnergy(e.getKey(), e.getValue());
 			}
 		}
 		addAvailableEnergy(-1, null);
 	}
 
-	private Pair<Float, Consumer<Float>> getEnergyForConnection(@Nullable AbstractConnection c, double storedNew)
+	private Pair<Float, Consumer<Float>> getEnergyForConnection(float loss, double storedNew)
 	{
-		float loss = c!=null?c.getAverageLossRate():0;
 		float max = (float) (storedNew-loss);
 		Consumer<Float> extract = (energy)-> bufferToNet -= energy+loss;
 		return new ImmutablePair<>(max, extract);
 	}
 
-	private double getAverageLossRate(AbstractConnection conn) {
-		double f = 0;
-		for (Connection c : conn.subConnections) {
-			WireType type = c.cableType;
-			if (type instanceof MixedWireType) {
-				f += c.length * ((MixedWireType)type).getLoss(energyType);
-			} else {
-				f = Double.POSITIVE_INFINITY;
-			}
-		}
-		return f;
-	}
-
 	//Input through the net
 	@Override
 	public double insertEnergy(double joules, boolean simulate, EnergyType type) {
@@ -292,16 +287,32 @@ public class TileEntityIC2ConnectorTin extends TileEntityImmersiveConnectable im
 
 	@Override
 	public void invalidate() {
-		if (!world.isRemote)
+		if (!world.isRemote) {
 			Compat.unloadIC2Tile.accept(this);
+			EnergyRoutingCache.invalidate(world);
+		}
 		super.invalidate();
 	}
 
 	@Override
 	public void onChunkUnload() {
 		super.onChunkUnload();
-		if (!world.isRemote)
+		if (!world.isRemote) {
 			Compat.unloadIC2Tile.accept(this);
+			EnergyRoutingCache.invalidate(world);
+		}
+	}
+
+	@Override
+	public void connectCable(WireType cableType, TargetingInfo target, IImmersiveConnectable other) {
+		super.connectCable(cableType, target, other);
+		EnergyRoutingCache.invalidate(world);
+	}
+
+	@Override
+	public void removeCable(@Nullable Connection connection) {
+		super.removeCable(connection);
+		EnergyRoutingCache.invalidate(world);
 	}
 
 	@Override
@@ -0,0 +1,196 @@
+/*
+ * This file is part of Industrial Wires.
+ * Copyright (C) 2016-2018 malte0811
+ * Industrial Wires is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * Industrial Wires is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with Industrial Wires.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package malte0811.industrialwires.blocks.wire;
+
+import malte0811.industrialwires.IMixedConnector;
+import malte0811.industrialwires.wires.EnergyRoutingCache;
+import malte0811.industrialwires.wires.EnergyRoutingCache.Route;
+import malte0811.industrialwires.wires.EnergyType;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import java.util.*;
+
+/**
+ * Distributes the energy of all mixed connectors with buffered energy in one pass at the end of the world tick
+ * (enabled by IWConfig.wireNetSolver). Every output is only queried once for its demand and receives one real insertion
+ * per tick, instead of one simulated and one real insertion per source. Losses and wire load are calculated the same
+ * way as in TileEntityIC2ConnectorTin#transferPowerToNet.
+ */
+@Mod.EventBusSubscriber
+public final class WireNetEnergySolver {
+	private static final double EPS = .1;
+	private static final Map<Integer, List<TileEntityIC2ConnectorTin>> SOURCES = new HashMap<>();
+
+	private WireNetEnergySolver() {
+	}
+
+	static void addSource(TileEntityIC2ConnectorTin source) {
+		SOURCES.computeIfAbsent(source.getWorld().provider.getDimension(), d -> new ArrayList<>()).add(source);
+	}
+
+	@SubscribeEvent
+	public static void onWorldTick(TickEvent.WorldTickEvent ev) {
+		if (ev.phase == TickEvent.Phase.END && !ev.world.isRemote) {
+			List<TileEntityIC2ConnectorTin> sources = SOURCES.remove(ev.world.provider.getDimension());
+			if (sources != null) {
+				solve(ev.world, sources);
+			}
+		}
+	}
+
+	@SubscribeEvent
+	public static void onWorldUnload(WorldEvent.Unload ev) {
+		if (!ev.getWorld().isRemote) {
+			SOURCES.remove(ev.getWorld().provider.getDimension());
+		}
+	}
+
+	private static void solve(World world, List<TileEntityIC2ConnectorTin> sources) {
+		Map<IMixedConnector, Sink> sinks = new HashMap<>();
+		List<List<Transfer>> bySource = new ArrayList<>(sources.size());
+		// Collect supplies and the outputs they can reach
+		for (TileEntityIC2ConnectorTin source : sources) {
+			List<Transfer> transfers = new ArrayList<>();
+			bySource.add(transfers);
+			if (source.isInvalid()) {
+				continue;
+			}
+			double outputMax = source.getNetOutputMax();
+			EnergyType type = source.getEnergyType();
+			for (Route r : EnergyRoutingCache.getRoutes(world, source.getPos())) {
+				if (r.connection.isEnergyOutput) {
+					IMixedConnector end = r.getMixedEnd(world);
+					if (end != null) {
+						Sink sink = sinks.computeIfAbsent(end, e -> new Sink(e, type));
+						if (sink.type == type) {
+							sink.offered += outputMax;
+							transfers.add(new Transfer(source, r, sink));
+						} else {
+							// Lets the output notice the mismatch and break the network
+							end.insertEnergy(outputMax, true, type);
+						}
+					}
+				}
+			}
+		}
+		// One simulated insertion per output
+		for (Sink sink : sinks.values()) {
+			sink.demand = sink.offered - sink.connector.insertEnergy(sink.offered, true, sink.type);
+		}
+		// Split the supply of each source according to the demand of the outputs
+		for (List<Transfer> transfers : bySource) {
+			if (transfers.isEmpty()) {
+				continue;
+			}
+			double outputMax = transfers.get(0).source.getNetOutputMax();
+			double sum = 0;
+			for (Transfer t : transfers) {
+				double weight = Math.min(outputMax, t.sink.demand);
+				if (weight > EPS) {
+					t.amount = weight;
+					sum += weight;
+				}
+			}
+			for (Transfer t : transfers) {
+				if (sum > EPS) {
+					t.amount = outputMax * t.amount / sum;
+					t.sink.requested += t.amount;
+				} else {
+					t.amount = 0;
+				}
+			}
+		}
+		// Scale down oversupplied outputs and apply the losses
+		for (List<Transfer> transfers : bySource) {
+			for (Transfer t : transfers) {
+				if (t.amount <= 0) {
+					continue;
+				}
+				TileEntityIC2ConnectorTin source = t.source;
+				EnergyType type = source.getEnergyType();
+				double out = t.amount;
+				if (t.sink.requested > t.sink.demand) {
+					out *= t.sink.demand / t.sink.requested;
+				}
+				double loss = type.getLoss(t.route.getLossRate(type), source.getBufferToNet(), out);
+				out = Math.min(out, source.getBufferToNet() - loss);
+				if (out <= 0) {
+					t.amount = 0;
+					continue;
+				}
+				t.amount = out;
+				t.loss = loss;
+				source.extractToNet(out + loss);
+				t.sink.toInsert += out;
+			}
+		}
+		// One real insertion per output
+		for (Sink sink : sinks.values()) {
+			if (sink.toInsert > 0) {
+				double inserted = sink.toInsert - sink.connector.insertEnergy(sink.toInsert, false, sink.type);
+				sink.insertedFraction = inserted / sink.toInsert;
+			}
+		}
+		for (List<Transfer> transfers : bySource) {
+			for (Transfer t : transfers) {
+				if (t.amount > 0) {
+					double inserted = t.amount * t.sink.insertedFraction;
+					// Return anything the output didn't accept after all
+					t.source.extractToNet(inserted - t.amount);
+					t.source.accountWireLoad(t.route, inserted + t.loss, inserted);
+				}
+			}
+		}
+		for (TileEntityIC2ConnectorTin source : sources) {
+			if (!source.isInvalid()) {
+				source.afterNetTransfer();
+			}
+		}
+	}
+
+	private static class Sink {
+		private final IMixedConnector connector;
+		private final EnergyType type;
+		private double offered;
+		private double demand;
+		private double requested;
+		private double toInsert;
+		private double insertedFraction;
+
+		private Sink(IMixedConnector connector, EnergyType type) {
+			this.connector = connector;
+			this.type = type;
+		}
+	}
+
+	private static class Transfer {
+		private final TileEntityIC2ConnectorTin source;
+		private final Route route;
+		private final Sink sink;
+		private double amount;
+		private double loss;
+
+		private Transfer(TileEntityIC2ConnectorTin source, Route route, Sink sink) {
+			this.source = source;
+			this.route = route;
+			this.sink = sink;
+		}
+	}
+}
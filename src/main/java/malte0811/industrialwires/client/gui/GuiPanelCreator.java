@@ -20,6 +20,7 @@ import com.google.common.collect.ImmutableList;
 import malte0811.industrialwires.IndustrialWires;
 import malte0811.industrialwires.blocks.controlpanel.TileEntityPanelCreator;
 import malte0811.industrialwires.containers.ContainerPanelCreator;
+import malte0811.industrialwires.controlpanel.ComponentGrid;
 import malte0811.industrialwires.controlpanel.MessageType;
 import malte0811.industrialwires.controlpanel.PanelComponent;
 import malte0811.industrialwires.controlpanel.PanelUtils;
@@ -211,7 +212,8 @@ public class GuiPanelCreator extends GuiContainer {
 		}
 		ItemStack unfinishedPanel = container.getInventory().get(0);
 		boolean red = (512 & (Minecraft.getSystemTime())) != 0;
-		if (red && !pc.isValidPos(container.tile.components, PanelUtils.getHeight(unfinishedPanel), PanelUtils.getAngle(unfinishedPanel))) {
+		if (red && !pc.isValidPos(container.tile.components, container.tile.getOccupancy(), PanelUtils.getHeight(unfinishedPanel),
+				PanelUtils.getAngle(unfinishedPanel))) {
 			AxisAlignedBB aabb = pc.getBlockRelativeAABB();
 			int left = (int) (getX0() + aabb.minX * panelSize) - 1;
 			int top = (int) (getY0() + aabb.minZ * panelSize) - 1;
@@ -246,13 +248,14 @@ public class GuiPanelCreator extends GuiContainer {
 			List<PanelComponent> components = container.tile.components;
 			if (curr != null) {
 				ItemStack unfinishedPanel = container.getInventory().get(0);
-				if (curr.isValidPos(components, PanelUtils.getHeight(unfinishedPanel), PanelUtils.getAngle(unfinishedPanel))) {
+				if (curr.isValidPos(components, container.tile.getOccupancy(), PanelUtils.getHeight(unfinishedPanel),
+						PanelUtils.getAngle(unfinishedPanel))) {
 					NBTTagCompound nbt = new NBTTagCompound();
 					nbt.setFloat("x", curr.getX());
 					nbt.setFloat("y", curr.getY());
 					nbt.setInteger("type", MessageType.ADD.ordinal());
 					IndustrialWires.packetHandler.sendToServer(new MessageGUIInteract(container.tile, nbt));
-					components.add(curr.copyOf());
+					container.tile.addComponent(curr.copyOf());
 					ItemStack currStack = mc.player.inventory.getItemStack();
 					if (!currStack.isEmpty()) {
 						currStack.shrink(1);
@@ -265,7 +268,10 @@ public class GuiPanelCreator extends GuiContainer {
 			} else if (mc.player.inventory.getItemStack().isEmpty()) {
 				float xRelFloat = xRel / (float) panelSize;
 				float yRelFloat = yRel / (float) panelSize;
-				for (int i = 0; i < components.size(); i++) {
+				ComponentGrid occupancy = container.tile.getOccupancy();
+				int count = occupancy.queryBox(xRelFloat, yRelFloat, xRelFloat, yRelFloat);
+				for (int j = 0; j < count; j++) {
+					int i = occupancy.getResult(j);
 					PanelComponent pc = components.get(i);
 					AxisAlignedBB aabb = pc.getBlockRelativeAABB();
 					if (aabb.minX <= xRelFloat && aabb.maxX > xRelFloat && aabb.minZ <= yRelFloat && aabb.maxZ > yRelFloat) {
@@ -19,6 +19,8 @@ import blusunrize.immersiveengineering.api.IEApi;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import malte0811.industrialwires.IWConfig;
+import malte0811.industrialwires.blocks.IWProperties;
 import malte0811.industrialwires.blocks.controlpanel.BlockTypes_Panel;
 import malte0811.industrialwires.blocks.controlpanel.TileEntityPanel;
 import malte0811.industrialwires.blocks.controlpanel.TileEntityUnfinishedPanel;
@@ -46,13 +48,8 @@ import java.util.concurrent.TimeUnit;
 
 @SideOnly(Side.CLIENT)
 public class PanelModel implements IBakedModel {
-	public final static Cache<PanelRenderProperties, AssembledBakedModel> modelCache = CacheBuilder.newBuilder()
-			.maximumSize(100)
-			.expireAfterAccess(60, TimeUnit.SECONDS)
-			.build();
-
 	static {
-		IEApi.renderCacheClearers.add(modelCache::invalidateAll);
+		IEApi.renderCacheClearers.add(PanelModelCache::invalidateAll);
 		IEApi.renderCacheClearers.add(PanelItemOverride.ITEM_MODEL_CACHE::invalidateAll);
 	}
 
@@ -67,12 +64,10 @@ public class PanelModel implements IBakedModel {
 			if (cl == null) {
 				return ImmutableList.of();
 			}
-			AssembledBakedModel m = modelCache.getIfPresent(cl);
-			if (m == null) {
-				m = new AssembledBakedModel(cl);
-				modelCache.put(cl.copyOf(), m);
+			if (IWConfig.asyncPanelBaking) {
+				return PanelModelBaker.getQuads(cl, ((IExtendedBlockState) state).getValue(IWProperties.POSITION));
 			}
-			return m.getQuads(state, null, rand);
+			return PanelModelCache.getQuads(cl);
 		}
 		return ImmutableList.of();
 	}
@@ -124,7 +119,7 @@ public class PanelModel implements IBakedModel {
 		@Override
 		public List<BakedQuad> getQuads(@Nullable IBlockState state, @Nullable EnumFacing side, long rand) {
 			if (quadsDefault == null) {
-				quadsDefault = PanelUtils.generateQuads(components);
+				quadsDefault = PanelModelCache.getQuads(components);
 				quadsDefault = Collections.synchronizedList(quadsDefault);
 			}
 			return quadsDefault;
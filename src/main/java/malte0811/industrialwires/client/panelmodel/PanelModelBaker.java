@@ -0,0 +1,159 @@
+/*
+ * This file is part of Industrial Wires.
+ * Copyright (C) 2016-2018 malte0811
+ * Industrial Wires is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * Industrial Wires is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with Industrial Wires.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package malte0811.industrialwires.client.panelmodel;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import malte0811.industrialwires.IndustrialWires;
+import malte0811.industrialwires.controlpanel.PropertyComponents.PanelRenderProperties;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Bakes panel models on background threads (enabled by IWConfig.asyncPanelBaking), so chunk rebuilds don't have to
+ * wait for them. While a panel is being baked, it is rendered with the last model baked for it or, if there is none,
+ * without components. Once the bake is done, the results are in PanelModelCache and the panel is rendered again.
+ */
+@SideOnly(Side.CLIENT)
+@Mod.EventBusSubscriber(modid = IndustrialWires.MODID, value = Side.CLIENT)
+public final class PanelModelBaker {
+	private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+	private static final int MAX_IN_FLIGHT = 4 * THREADS;
+	// Keyed by the (mutable) properties of the panel TE, weak keys use identity
+	private static final Cache<PanelRenderProperties, List<BakedQuad>> LAST_BAKED = CacheBuilder.newBuilder()
+			.weakKeys()
+			.build();
+	// Panels that are being baked or waiting in PENDING
+	private static final Set<PanelRenderProperties> IN_FLIGHT = Collections.newSetFromMap(new IdentityHashMap<>());
+	// Bakes that didn't fit into the pool, submitted when a running bake is done
+	private static final Queue<Runnable> PENDING = new ArrayDeque<>();
+	// Positions of panels that were baked and should be rendered again
+	private static final Set<BlockPos> TO_RERENDER = new HashSet<>();
+	private static int running;
+	private static ExecutorService pool;
+
+	private PanelModelBaker() {
+	}
+
+	/**
+	 * Called from the chunk render threads
+	 *
+	 * @param pos the position of the panel, used to render it again once it is baked
+	 */
+	public static List<BakedQuad> getQuads(PanelRenderProperties components, @Nullable BlockPos pos) {
+		List<BakedQuad> ret = PanelModelCache.getCachedQuads(components);
+		if (ret != null) {
+			LAST_BAKED.put(components, ret);
+			return ret;
+		}
+		if (pos == null) {
+			return PanelModelCache.getQuads(components);
+		}
+		// Chunk rebuilds pass mutable positions
+		BlockPos immutablePos = pos.toImmutable();
+		synchronized (IN_FLIGHT) {
+			if (IN_FLIGHT.add(components)) {
+				PanelRenderProperties copy = components.copyOf();
+				Runnable bake = () -> bake(components, copy, immutablePos);
+				if (running < MAX_IN_FLIGHT) {
+					running++;
+					getPool().execute(bake);
+				} else {
+					PENDING.add(bake);
+				}
+			}
+		}
+		ret = LAST_BAKED.getIfPresent(components);
+		if (ret == null) {
+			ret = PanelModelCache.getBaseQuads(components);
+		}
+		return ret;
+	}
+
+	private static void bake(PanelRenderProperties original, PanelRenderProperties copy, BlockPos pos) {
+		try {
+			LAST_BAKED.put(original, PanelModelCache.getQuads(copy));
+		} catch (RuntimeException x) {
+			IndustrialWires.logger.error("Failed to bake panel model", x);
+		} finally {
+			synchronized (IN_FLIGHT) {
+				IN_FLIGHT.remove(original);
+				TO_RERENDER.add(pos);
+				Runnable next = PENDING.poll();
+				if (next != null) {
+					getPool().execute(next);
+				} else {
+					running--;
+				}
+			}
+		}
+	}
+
+	@SubscribeEvent
+	public static void onClientTick(TickEvent.ClientTickEvent ev) {
+		if (ev.phase != TickEvent.Phase.END) {
+			return;
+		}
+		List<BlockPos> toRerender;
+		synchronized (IN_FLIGHT) {
+			if (TO_RERENDER.isEmpty()) {
+				return;
+			}
+			toRerender = new ArrayList<>(TO_RERENDER);
+			TO_RERENDER.clear();
+		}
+		World world = Minecraft.getMinecraft().world;
+		if (world == null) {
+			return;
+		}
+		for (BlockPos pos : toRerender) {
+			world.markBlockRangeForRenderUpdate(pos, pos);
+		}
+	}
+
+	public static void invalidateAll() {
+		LAST_BAKED.invalidateAll();
+	}
+
+	public static String getStats() {
+		synchronized (IN_FLIGHT) {
+			return String.format("Async baking: %d running (max %d), %d queued, %d waiting for a render update",
+					running, MAX_IN_FLIGHT, PENDING.size(), TO_RERENDER.size());
+		}
+	}
+
+	private static ExecutorService getPool() {
+		if (pool == null) {
+			pool = Executors.newFixedThreadPool(THREADS, r -> {
+				Thread ret = new Thread(r, "Industrial Wires panel baker");
+				ret.setDaemon(true);
+				return ret;
+			});
+		}
+		return pool;
+	}
+}
@@ -0,0 +1,357 @@
+/*
+ * This file is part of Industrial Wires.
+ * Copyright (C) 2016-2018 malte0811
+ * Industrial Wires is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * Industrial Wires is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with Industrial Wires.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package malte0811.industrialwires.client.panelmodel;
+
+import blusunrize.immersiveengineering.common.util.chickenbones.Matrix4;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import malte0811.industrialwires.controlpanel.PanelComponent;
+import malte0811.industrialwires.controlpanel.PanelUtils;
+import malte0811.industrialwires.controlpanel.PropertyComponents.AABBPanelProperties;
+import malte0811.industrialwires.controlpanel.PropertyComponents.PanelRenderProperties;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.vertex.VertexFormat;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the assembled quads of each panel state. Panels that aren't in that cache are assembled from two more layers,
+ * so a change to one component doesn't require baking the whole panel again: The quads of the panel itself are cached per panel layout, the quads of
+ * each component are cached per component state and transformation of the panel top, baked as if the component was at
+ * the origin of the panel top. If one component on a panel changes, only that component has to be baked again, and
+ * identical components anywhere on panels with the same orientation share their quads. The shared quads are moved to
+ * the position of the component once and cached per component position, so assembling a panel from cached components
+ * only looks them up.
+ */
+@SideOnly(Side.CLIENT)
+public final class PanelModelCache {
+	// Keys are copies, the properties of the panel TEs change
+	private static final Cache<PanelRenderProperties, List<BakedQuad>> ASSEMBLED_CACHE = CacheBuilder.newBuilder()
+			.maximumSize(1000)
+			.expireAfterAccess(5, TimeUnit.MINUTES)
+			.recordStats()
+			.build();
+	private static final Cache<PanelLayout, List<BakedQuad>> BASE_CACHE = CacheBuilder.newBuilder()
+			.maximumSize(1000)
+			.expireAfterAccess(5, TimeUnit.MINUTES)
+			.recordStats()
+			.build();
+	private static final Cache<ComponentKey, List<BakedQuad>> COMPONENT_CACHE = CacheBuilder.newBuilder()
+			.maximumSize(10000)
+			.expireAfterAccess(5, TimeUnit.MINUTES)
+			.recordStats()
+			.build();
+	// The quads of COMPONENT_CACHE, moved to the position of the component
+	private static final Cache<ComponentKey, List<BakedQuad>> PLACED_CACHE = CacheBuilder.newBuilder()
+			.maximumSize(10000)
+			.expireAfterAccess(5, TimeUnit.MINUTES)
+			.recordStats()
+			.build();
+	private static final AtomicLong baseBakeNanos = new AtomicLong();
+	private static final AtomicLong componentBakeNanos = new AtomicLong();
+	private static final AtomicLong placeNanos = new AtomicLong();
+
+	private PanelModelCache() {
+	}
+
+	public static List<BakedQuad> getQuads(PanelRenderProperties components) {
+		List<BakedQuad> ret = ASSEMBLED_CACHE.getIfPresent(components);
+		if (ret == null) {
+			PanelRenderProperties key = components.copyOf();
+			ret = Collections.unmodifiableList(assemble(key, true));
+			ASSEMBLED_CACHE.put(key, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the quads for the panel if the panel itself and all components are cached, null otherwise. Doesn't bake
+	 * anything and doesn't count towards the cache stats.
+	 */
+	@Nullable
+	public static List<BakedQuad> getCachedQuads(PanelRenderProperties components) {
+		// asMap().get doesn't record a hit or miss
+		List<BakedQuad> ret = ASSEMBLED_CACHE.asMap().get(components);
+		if (ret == null) {
+			// Only copy the panel once it can be assembled, this is called on every render pass while it's being baked
+			ret = assemble(components, false);
+			if (ret != null) {
+				ret = Collections.unmodifiableList(ret);
+				ASSEMBLED_CACHE.put(components.copyOf(), ret);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the quads of the panel itself, without any components
+	 */
+	public static List<BakedQuad> getBaseQuads(PanelRenderProperties components) {
+		PanelLayout layout = new PanelLayout(components);
+		List<BakedQuad> base = BASE_CACHE.getIfPresent(layout);
+		if (base == null) {
+			long start = System.nanoTime();
+			base = Collections.unmodifiableList(PanelUtils.generateBaseQuads(components));
+			baseBakeNanos.addAndGet(System.nanoTime() - start);
+			BASE_CACHE.put(layout, base);
+		}
+		return base;
+	}
+
+	@Nullable
+	private static List<BakedQuad> assemble(PanelRenderProperties components, boolean bakeMissing) {
+		List<BakedQuad> base;
+		if (bakeMissing) {
+			base = getBaseQuads(components);
+		} else {
+			// asMap().get doesn't record a hit or miss
+			base = BASE_CACHE.asMap().get(new PanelLayout(components));
+			if (base == null) {
+				return null;
+			}
+		}
+		List<BakedQuad> ret = new ArrayList<>(base.size() + 6 * components.size());
+		Matrix4 top = components.getPanelTopTransform();
+		double[] topKey = toArray(top);
+		//Intentionally not a for-each to help with CME's
+		//noinspection ForLoopReplaceableByForEach
+		for (int i = 0; i < components.size(); i++) {
+			PanelComponent pc = components.get(i);
+			// Compares the position as well, so the lookup doesn't have to copy the component
+			ComponentKey placedKey = new ComponentKey(topKey, pc);
+			List<BakedQuad> compQuads;
+			if (bakeMissing) {
+				compQuads = PLACED_CACHE.getIfPresent(placedKey);
+			} else {
+				compQuads = PLACED_CACHE.asMap().get(placedKey);
+			}
+			if (compQuads == null) {
+				PanelComponent placed = pc.copyOf();
+				List<BakedQuad> atOrigin = getOriginQuads(placed, top, topKey, bakeMissing);
+				if (atOrigin == null) {
+					return null;
+				}
+				long start = System.nanoTime();
+				compQuads = Collections.unmodifiableList(place(atOrigin, placed, top));
+				placeNanos.addAndGet(System.nanoTime() - start);
+				PLACED_CACHE.put(new ComponentKey(topKey, placed), compQuads);
+			}
+			ret.addAll(compQuads);
+		}
+		ret.addAll(base);
+		return ret;
+	}
+
+	/**
+	 * @return the quads of the component as if it was at the origin of the panel top, null if they aren't cached and
+	 * bakeMissing is false
+	 */
+	@Nullable
+	private static List<BakedQuad> getOriginQuads(PanelComponent pc, Matrix4 top, double[] topKey, boolean bakeMissing) {
+		PanelComponent atOrigin = pc.copyOf();
+		atOrigin.setX(0);
+		atOrigin.setY(0);
+		ComponentKey key = new ComponentKey(topKey, atOrigin);
+		List<BakedQuad> compQuads;
+		if (bakeMissing) {
+			compQuads = COMPONENT_CACHE.getIfPresent(key);
+		} else {
+			compQuads = COMPONENT_CACHE.asMap().get(key);
+			if (compQuads == null) {
+				return null;
+			}
+		}
+		if (compQuads == null) {
+			long start = System.nanoTime();
+			Matrix4 topNormal = top.copy();
+			topNormal.invert();
+			topNormal.transpose();
+			compQuads = Collections.unmodifiableList(PanelUtils.generateComponentQuads(atOrigin, top, topNormal));
+			componentBakeNanos.addAndGet(System.nanoTime() - start);
+			COMPONENT_CACHE.put(key, compQuads);
+		}
+		return compQuads;
+	}
+
+	private static List<BakedQuad> place(List<BakedQuad> atOrigin, PanelComponent placed, Matrix4 top) {
+		if (placed.getX() == 0 && placed.getY() == 0) {
+			return atOrigin;
+		}
+		// The offset of the component on the panel top, transformed to block space
+		float x = placed.getX();
+		float y = placed.getY();
+		float dx = (float) (top.m00 * x + top.m02 * y);
+		float dy = (float) (top.m10 * x + top.m12 * y);
+		float dz = (float) (top.m20 * x + top.m22 * y);
+		List<BakedQuad> ret = new ArrayList<>(atOrigin.size());
+		for (BakedQuad quad : atOrigin) {
+			ret.add(translate(quad, dx, dy, dz));
+		}
+		return ret;
+	}
+
+	private static BakedQuad translate(BakedQuad quad, float dx, float dy, float dz) {
+		VertexFormat format = quad.getFormat();
+		int[] data = quad.getVertexData().clone();
+		int stride = format.getIntegerSize();
+		// The position is the first element of the formats used for panels
+		for (int v = 0; v < 4; v++) {
+			int pos = v * stride;
+			data[pos] = Float.floatToRawIntBits(Float.intBitsToFloat(data[pos]) + dx);
+			data[pos + 1] = Float.floatToRawIntBits(Float.intBitsToFloat(data[pos + 1]) + dy);
+			data[pos + 2] = Float.floatToRawIntBits(Float.intBitsToFloat(data[pos + 2]) + dz);
+		}
+		if (quad instanceof SmartLightingQuadIW) {
+			return new SmartLightingQuadIW(data, quad.getTintIndex(), quad.getFace(), quad.getSprite(), format,
+					((SmartLightingQuadIW) quad).getBrightness());
+		}
+		return new BakedQuad(data, quad.getTintIndex(), quad.getFace(), quad.getSprite(), quad.shouldApplyDiffuseLighting(),
+				format);
+	}
+
+	private static double[] toArray(Matrix4 m) {
+		return new double[]{
+				m.m00, m.m01, m.m02, m.m03,
+				m.m10, m.m11, m.m12, m.m13,
+				m.m20, m.m21, m.m22, m.m23,
+				m.m30, m.m31, m.m32, m.m33
+		};
+	}
+
+	public static void invalidateAll() {
+		ASSEMBLED_CACHE.invalidateAll();
+		BASE_CACHE.invalidateAll();
+		COMPONENT_CACHE.invalidateAll();
+		PLACED_CACHE.invalidateAll();
+		PanelModelBaker.invalidateAll();
+	}
+
+	public static List<String> getStats() {
+		List<String> ret = new ArrayList<>(5);
+		CacheStats assembled = ASSEMBLED_CACHE.stats();
+		ret.add(String.format("Assembled panels: %d entries, %.1f%% hit rate (%d hits, %d misses)", ASSEMBLED_CACHE.size(),
+				100 * assembled.hitRate(), assembled.hitCount(), assembled.missCount()));
+		ret.add(formatStats("Panel base", BASE_CACHE.stats(), baseBakeNanos.get(), BASE_CACHE.size()));
+		ret.add(formatStats("Components", COMPONENT_CACHE.stats(), componentBakeNanos.get(), COMPONENT_CACHE.size()));
+		ret.add(formatStats("Placed components", PLACED_CACHE.stats(), placeNanos.get(), PLACED_CACHE.size()));
+		ret.add(PanelModelBaker.getStats());
+		return ret;
+	}
+
+	private static String formatStats(String name, CacheStats stats, long bakeNanos, long size) {
+		double avgBakeMicros = stats.missCount() > 0 ? bakeNanos / 1e3 / stats.missCount() : 0;
+		return String.format("%s: %d entries, %.1f%% hit rate (%d hits, %d misses), %.1f µs per bake",
+				name, size, 100 * stats.hitRate(), stats.hitCount(), stats.missCount(), avgBakeMicros);
+	}
+
+	/**
+	 * Everything the quads of the panel itself depend on
+	 */
+	private static final class PanelLayout {
+		private final EnumFacing facing;
+		private final EnumFacing top;
+		private final float height;
+		private final float angle;
+		private final ItemStack texture;
+		private final AxisAlignedBB bounds;
+		private final int hash;
+
+		private PanelLayout(PanelRenderProperties properties) {
+			facing = properties.getFacing();
+			top = properties.getTop();
+			height = properties.getHeight();
+			angle = properties.getAngle();
+			texture = properties.getTextureSource();
+			if (properties instanceof AABBPanelProperties) {
+				bounds = ((AABBPanelProperties) properties).getPanelBoundingBox();
+			} else {
+				bounds = null;
+			}
+			int result = facing.hashCode();
+			result = 31 * result + top.hashCode();
+			result = 31 * result + Float.floatToIntBits(height);
+			result = 31 * result + Float.floatToIntBits(angle);
+			result = 31 * result + texture.getItem().hashCode();
+			result = 31 * result + texture.getMetadata();
+			result = 31 * result + (bounds != null ? bounds.hashCode() : 0);
+			hash = result;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+
+			PanelLayout that = (PanelLayout) o;
+
+			if (hash != that.hash) return false;
+			if (Float.compare(that.height, height) != 0) return false;
+			if (Float.compare(that.angle, angle) != 0) return false;
+			if (facing != that.facing) return false;
+			if (top != that.top) return false;
+			if (bounds != null ? !bounds.equals(that.bounds) : that.bounds != null) return false;
+			return ItemStack.areItemStacksEqual(texture, that.texture);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * The component includes its type, render state and position, so together with the transformation of the panel top
+	 * it determines the baked quads.
+	 */
+	private static final class ComponentKey {
+		private final double[] topTransform;
+		private final PanelComponent component;
+		private final int hash;
+
+		private ComponentKey(double[] topTransform, PanelComponent component) {
+			this.topTransform = topTransform;
+			this.component = component;
+			hash = 31 * Arrays.hashCode(topTransform) + component.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+
+			ComponentKey that = (ComponentKey) o;
+
+			return hash == that.hash && Arrays.equals(topTransform, that.topTransform) && component.equals(that.component);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
@@ -41,7 +41,7 @@ public class PanelModelLoader implements ICustomModelLoader {
 
 	@Override
 	public void onResourceManagerReload(@Nonnull IResourceManager resourceManager) {
-		PanelModel.modelCache.invalidateAll();
+		PanelModelCache.invalidateAll();
 		PanelUtils.PANEL_TEXTURE = null;
 	}
 
@@ -54,6 +54,10 @@ public class SmartLightingQuadIW extends BakedQuad {
 		this.brightness = light;
 	}
 
+	public int getBrightness() {
+		return brightness;
+	}
+
 	@Override
 	public void pipe(IVertexConsumer consumer) {
 		if (consumer instanceof VertexLighterFlat) {
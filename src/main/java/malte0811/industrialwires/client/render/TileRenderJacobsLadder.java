@@ -90,7 +90,8 @@ public class TileRenderJacobsLadder extends TileEntitySpecialRenderer<TileEntity
 		BufferBuilder vertBuffer = tes.getBuffer();
 		float[][] colors = new float[steps + 1][];
 		vertBuffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
-		Vec3d last = Beziers.getPoint(0, controls);
+		Beziers.BasisTable basis = Beziers.getTable(controls.length - 1, steps);
+		Vec3d last = controls[0];
 		colors[0] = getColor(0, salt, size);
 		if (Shaders.areShadersEnabled()) {
 			colors[0][0] = 0;
@@ -98,7 +99,7 @@ public class TileRenderJacobsLadder extends TileEntitySpecialRenderer<TileEntity
 		for (int i = 1; i <= steps; i++) {
 			double d = i / (double) steps;
 			colors[i] = getColor(d, salt, size);
-			Vec3d pos = Beziers.getPoint(d, controls);
+			Vec3d pos = basis.getPoint(i, controls);
 			if (Shaders.areShadersEnabled()) {
 				colors[i][0] = (float) d;
 			}
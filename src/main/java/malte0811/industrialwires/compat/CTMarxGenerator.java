@@ -142,6 +142,7 @@ public class CTMarxGenerator {
 				for (ItemStack input:curr.exampleInput) {
 					if (inputMatcher.test(input)) {
 						ores.remove();
+						MarxOreHandler.invalidateCache();
 						Compat.removeMarx.accept(curr);
 						break;
 					}
@@ -0,0 +1,225 @@
+/*
+ * This file is part of Industrial Wires.
+ * Copyright (C) 2016-2018 malte0811
+ * Industrial Wires is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * Industrial Wires is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with Industrial Wires.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package malte0811.industrialwires.controlpanel;
+
+import net.minecraft.util.math.AxisAlignedBB;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A uniform grid over the XZ plane of a panel top (the space of PanelComponent#getBlockRelativeAABB) storing which
+ * components overlap which cells. Queries return the IDs (usually the index in the component list) of all components
+ * in the cells touched by a segment or box, in ascending order and without duplicates. They may contain components that
+ * don't actually intersect the query, so the caller still has to check the component AABBs.
+ */
+public final class ComponentGrid {
+	private static final int MAX_CELLS_PER_AXIS = 16;
+	private final double minX, minZ;
+	private final double cellSizeX, cellSizeZ;
+	private final int cellsX, cellsZ;
+	private final int[][] cells;
+	private final int[] cellSizes;
+	// Deduplication of query results: An ID was already found in the current query iff stamps[id]==stamp
+	private int[] stamps = new int[0];
+	private int stamp;
+	private int[] result = new int[8];
+	private int resultSize;
+	private final double[] clipRange = new double[2];
+
+	public ComponentGrid(double minX, double minZ, double maxX, double maxZ, int cellsPerAxis) {
+		this.minX = minX;
+		this.minZ = minZ;
+		cellsX = cellsZ = Math.max(1, Math.min(MAX_CELLS_PER_AXIS, cellsPerAxis));
+		cellSizeX = Math.max(maxX - minX, 1e-6) / cellsX;
+		cellSizeZ = Math.max(maxZ - minZ, 1e-6) / cellsZ;
+		cells = new int[cellsX * cellsZ][];
+		cellSizes = new int[cells.length];
+	}
+
+	/**
+	 * Creates a grid covering all components in the list, each grown by margin. The ID of a component is its index in
+	 * the list.
+	 */
+	public static ComponentGrid of(List<PanelComponent> components, double margin) {
+		double minX = 0, minZ = 0, maxX = 1, maxZ = 1;
+		for (PanelComponent pc : components) {
+			AxisAlignedBB box = pc.getBlockRelativeAABB();
+			minX = Math.min(minX, box.minX - margin);
+			minZ = Math.min(minZ, box.minZ - margin);
+			maxX = Math.max(maxX, box.maxX + margin);
+			maxZ = Math.max(maxZ, box.maxZ + margin);
+		}
+		ComponentGrid ret = new ComponentGrid(minX, minZ, maxX, maxZ, (int) Math.ceil(Math.sqrt(components.size())));
+		for (int i = 0; i < components.size(); i++) {
+			AxisAlignedBB box = components.get(i).getBlockRelativeAABB();
+			ret.add(i, box.minX - margin, box.minZ - margin, box.maxX + margin, box.maxZ + margin);
+		}
+		return ret;
+	}
+
+	public void add(int id, AxisAlignedBB box) {
+		add(id, box.minX, box.minZ, box.maxX, box.maxZ);
+	}
+
+	public void add(int id, double minX, double minZ, double maxX, double maxZ) {
+		if (id >= stamps.length) {
+			stamps = Arrays.copyOf(stamps, Math.max(2 * stamps.length, id + 1));
+		}
+		for (int x = cellX(minX); x <= cellX(maxX); x++) {
+			for (int z = cellZ(minZ); z <= cellZ(maxZ); z++) {
+				int cell = x * cellsZ + z;
+				if (cells[cell] == null) {
+					cells[cell] = new int[4];
+				} else if (cellSizes[cell] == cells[cell].length) {
+					cells[cell] = Arrays.copyOf(cells[cell], 2 * cellSizes[cell]);
+				}
+				cells[cell][cellSizes[cell]++] = id;
+			}
+		}
+	}
+
+	/**
+	 * Removes the component with the given ID and decrements all higher IDs, matching List#remove(int)
+	 */
+	public void remove(int id) {
+		for (int cell = 0; cell < cells.length; cell++) {
+			int newSize = 0;
+			for (int i = 0; i < cellSizes[cell]; i++) {
+				int here = cells[cell][i];
+				if (here != id) {
+					cells[cell][newSize++] = here > id ? here - 1 : here;
+				}
+			}
+			cellSizes[cell] = newSize;
+		}
+	}
+
+	/**
+	 * Finds the components in all cells overlapping the given box
+	 *
+	 * @return the number of results, see getResult
+	 */
+	public int queryBox(double minX, double minZ, double maxX, double maxZ) {
+		startQuery();
+		for (int x = cellX(minX); x <= cellX(maxX); x++) {
+			for (int z = cellZ(minZ); z <= cellZ(maxZ); z++) {
+				collect(x * cellsZ + z);
+			}
+		}
+		return finishQuery();
+	}
+
+	/**
+	 * Finds the components in all cells the segment from (x0, z0) to (x1, z1) passes through
+	 *
+	 * @return the number of results, see getResult
+	 */
+	public int querySegment(double x0, double z0, double x1, double z1) {
+		startQuery();
+		double dx = x1 - x0;
+		double dz = z1 - z0;
+		// Clip the segment to the grid (Liang-Barsky)
+		double[] range = clipRange;
+		range[0] = 0;
+		range[1] = 1;
+		double maxX = minX + cellsX * cellSizeX;
+		double maxZ = minZ + cellsZ * cellSizeZ;
+		if (!clip(-dx, x0 - minX, range) || !clip(dx, maxX - x0, range)
+				|| !clip(-dz, z0 - minZ, range) || !clip(dz, maxZ - z0, range)) {
+			return finishQuery();
+		}
+		// Walk the cells along the clipped segment
+		int x = cellX(x0 + range[0] * dx);
+		int z = cellZ(z0 + range[0] * dz);
+		int endX = cellX(x0 + range[1] * dx);
+		int endZ = cellZ(z0 + range[1] * dz);
+		int stepX = dx > 0 ? 1 : -1;
+		int stepZ = dz > 0 ? 1 : -1;
+		double deltaX = dx != 0 ? Math.abs(cellSizeX / dx) : Double.POSITIVE_INFINITY;
+		double deltaZ = dz != 0 ? Math.abs(cellSizeZ / dz) : Double.POSITIVE_INFINITY;
+		double nextX = dx != 0 ? (minX + (x + (dx > 0 ? 1 : 0)) * cellSizeX - x0) / dx : Double.POSITIVE_INFINITY;
+		double nextZ = dz != 0 ? (minZ + (z + (dz > 0 ? 1 : 0)) * cellSizeZ - z0) / dz : Double.POSITIVE_INFINITY;
+		for (int steps = 0; steps <= cellsX + cellsZ; steps++) {
+			collect(x * cellsZ + z);
+			if (x == endX && z == endZ) {
+				break;
+			}
+			if (nextX < nextZ) {
+				x += stepX;
+				nextX += deltaX;
+			} else {
+				z += stepZ;
+				nextZ += deltaZ;
+			}
+			if (x < 0 || x >= cellsX || z < 0 || z >= cellsZ) {
+				break;
+			}
+		}
+		return finishQuery();
+	}
+
+	/**
+	 * @return the i-th ID found by the last query
+	 */
+	public int getResult(int i) {
+		return result[i];
+	}
+
+	private static boolean clip(double p, double q, double[] range) {
+		if (p == 0) {
+			return q >= 0;
+		}
+		double t = q / p;
+		if (p < 0) {
+			range[0] = Math.max(range[0], t);
+		} else {
+			range[1] = Math.min(range[1], t);
+		}
+		return range[0] <= range[1];
+	}
+
+	private void startQuery() {
+		stamp++;
+		resultSize = 0;
+	}
+
+	private int finishQuery() {
+		Arrays.sort(result, 0, resultSize);
+		return resultSize;
+	}
+
+	private void collect(int cell) {
+		for (int i = 0; i < cellSizes[cell]; i++) {
+			int id = cells[cell][i];
+			if (stamps[id] != stamp) {
+				stamps[id] = stamp;
+				if (resultSize == result.length) {
+					result = Arrays.copyOf(result, 2 * resultSize);
+				}
+				result[resultSize++] = id;
+			}
+		}
+	}
+
+	private int cellX(double x) {
+		return Math.max(0, Math.min(cellsX - 1, (int) Math.floor((x - minX) / cellSizeX)));
+	}
+
+	private int cellZ(double z) {
+		return Math.max(0, Math.min(cellsZ - 1, (int) Math.floor((z - minZ) / cellSizeZ)));
+	}
+}
@@ -17,27 +17,47 @@ package malte0811.industrialwires.controlpanel;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import malte0811.industrialwires.IWConfig;
 import malte0811.industrialwires.blocks.controlpanel.TileEntityGeneralCP;
 import malte0811.industrialwires.util.MiscUtils;
 import net.minecraft.item.EnumDyeColor;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagByte;
 import net.minecraft.nbt.NBTTagInt;
-import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
 
 import javax.annotation.Nullable;
 import java.util.*;
 import java.util.function.Consumer;
 
 @SuppressWarnings({"unused", "WeakerAccess"})
+@Mod.EventBusSubscriber
 public class ControlPanelNetwork {
+	private static final Map<Integer, Set<ControlPanelNetwork>> PENDING_SPLITS = new HashMap<>();
+	// Networks with channel changes listeners haven't been notified of yet, see IWConfig.deferPanelNotifications
+	private static final Set<ControlPanelNetwork> PENDING_NOTIFICATIONS = Collections.newSetFromMap(new IdentityHashMap<>());
+	// Listeners can change outputs when notified, this limits how often that is resolved in the same tick
+	private static final int MAX_NOTIFICATION_ROUNDS = 16;
+	private static int changesThisTick = 0;
+	private static int notificationsThisTick = 0;
+	private static int lastTickChanges = 0;
+	private static int lastTickNotifications = 0;
 	protected Map<RSChannel, List<ChangeListener>> listeners = new HashMap<>();
-	protected Map<RSChannel, List<OutputValue>> allOutputs = new HashMap<>();
+	protected Map<RSChannel, ChannelOutputs> allOutputs = new HashMap<>();
 	protected Map<RSChannel, OutputValue> activeOutputs = new HashMap<>();
 	protected Map<RSChannel, OutputValue> secondActiveOutputs = new HashMap<>();
 	protected Set<BlockPos> members = new HashSet<>();
+	// Reverse indices so removing an owner only touches the channels it uses. Owners are compared by identity since
+	// PanelComponent#equals and #hashCode depend on the (mutable) state of the component
+	private final Map<IOwner, OwnerIndex> indexByOwner = new IdentityHashMap<>();
+	private final Map<BlockPos, Set<IOwner>> ownersByPos = new HashMap<>();
+	private Map<RSChannel, PendingChange> pendingChanges = new LinkedHashMap<>();
 
 	public void addListener(IOwner owner, Consumer<RSChannelState> listener, RSChannel... channels) {
 		ChangeListener l = new ChangeListener(owner, listener);
@@ -47,6 +67,7 @@ public class ControlPanelNetwork {
 			}
 			listeners.computeIfAbsent(channel, c->new ArrayList<>())
 					.add(l);
+			addToIndex(owner, channel);
 			if (activeOutputs.containsKey(channel)) {
 				listener.accept(activeOutputs.get(channel).targetState);
 			} else {
@@ -57,73 +78,140 @@ public class ControlPanelNetwork {
 
 	public void setOutputs(IOwner owner, RSChannelState... out) {
 		for (RSChannelState o:out) {
-			if (!o.getChannel().isValid()) {
+			RSChannel channel = o.getChannel();
+			if (!channel.isValid()) {
 				continue;
 			}
-			if (removeForChannel(owner, allOutputs.get(o.getChannel()), null)) {
-				allOutputs.remove(o.getChannel());
+			ChannelOutputs outputs = allOutputs.get(channel);
+			if (outputs!=null && outputs.remove(owner) && outputs.isEmpty()) {
+				allOutputs.remove(channel);
 			}
 			if (o.getStrength()>0) {
 				OutputValue outVal = new OutputValue(owner, o);
-				allOutputs.computeIfAbsent(o.getChannel(), c -> new ArrayList<>())
+				allOutputs.computeIfAbsent(channel, c -> new ChannelOutputs())
 						.add(outVal);
+				addToIndex(owner, channel);
 			}
-			recalculateOutput(o.getChannel(), Collections.singleton(owner), Collections.emptyList());
+			recalculateOutput(channel, Collections.singleton(owner), Collections.emptyList());
 		}
 	}
 
 	public void removeIOFor(IOwner owner) {
-		Iterator<Map.Entry<RSChannel, List<ChangeListener>>> iteratorL = listeners.entrySet().iterator();
-		while (iteratorL.hasNext()) {
-			Map.Entry<RSChannel, List<ChangeListener>> entry = iteratorL.next();
-			removeForChannel(owner, entry.getValue(), iteratorL);
+		Set<RSChannel> channels = removeFromIndex(owner);
+		if (channels==null) {
+			return;
+		}
+		for (RSChannel channel:channels) {
+			List<ChangeListener> forChannel = listeners.get(channel);
+			if (forChannel!=null) {
+				forChannel.removeIf(l -> l.isOwnedBy(owner));
+				if (forChannel.isEmpty()) {
+					listeners.remove(channel);
+				}
+			}
 		}
-		Iterator<Map.Entry<RSChannel, List<OutputValue>>> iteratorO = allOutputs.entrySet().iterator();
-		while (iteratorO.hasNext()) {
-			Map.Entry<RSChannel, List<OutputValue>> entry = iteratorO.next();
-			if (!removeForChannel(owner, entry.getValue(), iteratorO)) {
-				recalculateOutput(entry.getKey(), Collections.singleton(owner), Collections.emptyList());
+		for (RSChannel channel:channels) {
+			ChannelOutputs outputs = allOutputs.get(channel);
+			if (outputs!=null) {
+				outputs.remove(owner);
+				if (outputs.isEmpty()) {
+					allOutputs.remove(channel);
+				} else {
+					recalculateOutput(channel, Collections.singleton(owner), Collections.emptyList());
+				}
 			}
 		}
 	}
 
 	public void removeMember(BlockPos pos, World w) {
-		for (List<ChangeListener> list : listeners.values()) {
-			list.removeIf(l->l.ownerAtPos(pos));
-		}
-		Iterator<Map.Entry<RSChannel, List<OutputValue>>> iterator = allOutputs.entrySet().iterator();
-		while (iterator.hasNext()) {
-			Map.Entry<RSChannel, List<OutputValue>> entry = iterator.next();
-			entry.getValue().removeIf(l -> l.ownerAtPos(pos));
-			if (entry.getValue().isEmpty()) {
-				iterator.remove();
-			}
-			recalculateOutput(entry.getKey(), Collections.emptyList(), Collections.singleton(pos));
-		}
+		removeOwnersAt(Collections.singleton(pos));
 		members.remove(pos);
-		split(pos, w);
+		scheduleSplit(w);
 	}
 
 	//This does not call split!
 	private void removeAllMembers(Collection<BlockPos> toRemove) {
-		Iterator<Map.Entry<RSChannel, List<ChangeListener>>> iteratorL = listeners.entrySet().iterator();
-		while (iteratorL.hasNext()) {
-			Map.Entry<RSChannel, List<ChangeListener>> entry = iteratorL.next();
-			entry.getValue().removeIf(l -> l.ownerAtPos(toRemove));
-			if (entry.getValue().isEmpty()) {
-				iteratorL.remove();
+		removeOwnersAt(toRemove);
+		members.removeAll(toRemove);
+	}
+
+	private void removeOwnersAt(Collection<BlockPos> toRemoveIn) {
+		Set<BlockPos> toRemove = toRemoveIn instanceof Set ? (Set<BlockPos>) toRemoveIn : new HashSet<>(toRemoveIn);
+		Set<RSChannel> affected = new LinkedHashSet<>();
+		Set<IOwner> removedOwners = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (BlockPos pos:toRemove) {
+			Set<IOwner> owners = ownersByPos.get(pos);
+			if (owners!=null) {
+				removedOwners.addAll(owners);
 			}
 		}
-		Iterator<Map.Entry<RSChannel, List<OutputValue>>> iteratorO = allOutputs.entrySet().iterator();
-		while (iteratorO.hasNext()) {
-			Map.Entry<RSChannel, List<OutputValue>> entry = iteratorO.next();
-			entry.getValue().removeIf(l -> l.ownerAtPos(toRemove));
-			if (entry.getValue().isEmpty()) {
-				iteratorO.remove();
+		for (IOwner owner:removedOwners) {
+			Set<RSChannel> channels = removeFromIndex(owner);
+			if (channels!=null) {
+				affected.addAll(channels);
+			}
+		}
+		for (RSChannel channel:affected) {
+			List<ChangeListener> forChannel = listeners.get(channel);
+			if (forChannel!=null) {
+				forChannel.removeIf(l -> l.isOwnerIn(removedOwners) || l.ownerAtPos(toRemove));
+				if (forChannel.isEmpty()) {
+					listeners.remove(channel);
+				}
+			}
+		}
+		for (RSChannel channel:affected) {
+			ChannelOutputs outputs = allOutputs.get(channel);
+			if (outputs!=null) {
+				for (IOwner owner:removedOwners) {
+					outputs.remove(owner);
+				}
+				if (outputs.isEmpty()) {
+					allOutputs.remove(channel);
+				}
+				recalculateOutput(channel, Collections.emptyList(), toRemove);
+			}
+		}
+	}
+
+	private void addToIndex(IOwner owner, RSChannel channel) {
+		OwnerIndex index = indexByOwner.get(owner);
+		BlockPos pos = owner.getBlockPos();
+		if (index==null || !index.pos.equals(pos)) {
+			// The position of an owner can change before it is added to the final network (e.g. TE constructor)
+			if (index!=null) {
+				removeFromPosIndex(owner, index.pos);
+			}
+			OwnerIndex newIndex = new OwnerIndex(pos);
+			if (index!=null) {
+				newIndex.channels.addAll(index.channels);
+			}
+			index = newIndex;
+			indexByOwner.put(owner, index);
+			ownersByPos.computeIfAbsent(pos, p -> Collections.newSetFromMap(new IdentityHashMap<>()))
+					.add(owner);
+		}
+		index.channels.add(channel);
+	}
+
+	@Nullable
+	private Set<RSChannel> removeFromIndex(IOwner owner) {
+		OwnerIndex index = indexByOwner.remove(owner);
+		if (index==null) {
+			return null;
+		}
+		removeFromPosIndex(owner, index.pos);
+		return index.channels;
+	}
+
+	private void removeFromPosIndex(IOwner owner, BlockPos pos) {
+		Set<IOwner> atPos = ownersByPos.get(pos);
+		if (atPos!=null) {
+			atPos.remove(owner);
+			if (atPos.isEmpty()) {
+				ownersByPos.remove(pos);
 			}
-			recalculateOutput(entry.getKey(), Collections.emptyList(), toRemove);
 		}
-		members.removeAll(toRemove);
 	}
 
 	public void addMember(TileEntityGeneralCP member) {
@@ -131,8 +219,22 @@ public class ControlPanelNetwork {
 		member.setNetworkAndInit(this);
 	}
 
+	public int getMemberCount() {
+		return members.size();
+	}
+
 	public void replaceWith(ControlPanelNetwork newNet, World w) {
 		replaceWith(newNet, w, ImmutableSet.copyOf(members));
+		// This network is empty now, so its listeners are only in newNet
+		pendingChanges.clear();
+		PENDING_NOTIFICATIONS.remove(this);
+		// A split of this network still has to happen in the network its members were moved to
+		if (!w.isRemote) {
+			Set<ControlPanelNetwork> toSplit = PENDING_SPLITS.get(w.provider.getDimension());
+			if (toSplit!=null && toSplit.remove(this)) {
+				toSplit.add(newNet);
+			}
+		}
 	}
 
 	private void replaceWith(ControlPanelNetwork newNet, World w, Collection<BlockPos> toReplace) {
@@ -143,6 +245,31 @@ public class ControlPanelNetwork {
 				newNet.addMember(te);
 			}
 		}
+		copyPendingChanges(newNet);
+	}
+
+	/**
+	 * Marks the channels with pending changes as changed in newNet as well, so the listeners moved there are notified
+	 * of the final state of those channels in newNet
+	 */
+	private void copyPendingChanges(ControlPanelNetwork newNet) {
+		for (Map.Entry<RSChannel, PendingChange> e:pendingChanges.entrySet()) {
+			RSChannel channel = e.getKey();
+			if (!newNet.pendingChanges.containsKey(channel)) {
+				PendingChange old = e.getValue();
+				PendingChange moved = new PendingChange(old.excluded, old.oldMax, old.oldSecMax);
+				moved.newMax = newNet.activeOutputs.get(channel);
+				moved.newSecMax = newNet.secondActiveOutputs.get(channel);
+				if (moved.newMax==null) {
+					moved.newMax = new OutputValue(null, new RSChannelState(channel, (byte) 0));
+				}
+				if (moved.newSecMax==null) {
+					moved.newSecMax = new OutputValue(null, new RSChannelState(channel, (byte) 0));
+				}
+				newNet.pendingChanges.put(channel, moved);
+				PENDING_NOTIFICATIONS.add(newNet);
+			}
+		}
 	}
 
 	private void recalculateOutput(RSChannel channel, Collection<IOwner> excluded, Collection<BlockPos> excludedPos) {
@@ -150,15 +277,10 @@ public class ControlPanelNetwork {
 		OutputValue oldSecMax = secondActiveOutputs.get(channel);
 		OutputValue newMax = null;
 		OutputValue newSecMax = null;
-		if (allOutputs.containsKey(channel)) {
-			for (OutputValue v : allOutputs.get(channel)) {
-				if (v.isStrongerThan(newMax)) {
-					newSecMax = newMax;
-					newMax = v;
-				} else if (v.isStrongerThan(newSecMax)) {
-					newSecMax = v;
-				}
-			}
+		ChannelOutputs outputs = allOutputs.get(channel);
+		if (outputs!=null) {
+			newMax = outputs.getStrongest();
+			newSecMax = outputs.getSecondStrongest();
 		}
 		if (newMax == null) {
 			newMax = new OutputValue(null, new RSChannelState(channel, (byte) 0));
@@ -172,64 +294,280 @@ public class ControlPanelNetwork {
 			newSecMax = new OutputValue(null, new RSChannelState(channel, (byte) 0));
 		}
 		if (!newSecMax.equals(oldSecMax) || !newMax.equals(oldMax)) {
-			List<ChangeListener> listenersForChannel = listeners.get(channel);
-			if (listenersForChannel != null) {
-				for (ChangeListener l : listenersForChannel) {
-					if (!l.isOwnedBy(excluded) && !l.ownerAtPos(excludedPos)) {
-						if (!l.hasSameOwner(newMax)) {
-							l.onChange(newMax.getTargetState());
-						} else {
-							l.onChange(newSecMax.getTargetState());
-						}
+			boolean inWorld = isInServerWorld();
+			if (inWorld) {
+				changesThisTick++;
+			}
+			if (inWorld && IWConfig.deferPanelNotifications) {
+				PendingChange pending = pendingChanges.get(channel);
+				if (pending==null) {
+					pending = new PendingChange(excluded, oldMax, oldSecMax);
+					pendingChanges.put(channel, pending);
+					PENDING_NOTIFICATIONS.add(this);
+				} else {
+					pending.addCause(excluded);
+				}
+				pending.newMax = newMax;
+				pending.newSecMax = newSecMax;
+			} else {
+				notifyListeners(channel, newMax, newSecMax, excluded, excludedPos);
+			}
+		}
+	}
+
+	private void notifyListeners(RSChannel channel, OutputValue newMax, OutputValue newSecMax, Collection<IOwner> excluded,
+								 Collection<BlockPos> excludedPos) {
+		List<ChangeListener> listenersForChannel = listeners.get(channel);
+		if (listenersForChannel != null) {
+			boolean inWorld = isInServerWorld();
+			for (ChangeListener l : listenersForChannel) {
+				if (!l.isOwnedBy(excluded) && !l.ownerAtPos(excludedPos)) {
+					if (inWorld) {
+						notificationsThisTick++;
+					}
+					if (!l.hasSameOwner(newMax)) {
+						l.onChange(newMax.getTargetState());
+					} else {
+						l.onChange(newSecMax.getTargetState());
 					}
 				}
 			}
 		}
 	}
 
-	private <T extends Owned> boolean removeForChannel(IOwner owner, List<T> l, Iterator<?> it) {
-		if (l==null) {
-			return false;
+	/**
+	 * Members are only added on the server, so this excludes networks of client-side panels, e.g. the ones created to
+	 * render panel items. Those are never flushed by the server tick and must not touch its static state.
+	 */
+	private boolean isInServerWorld() {
+		return !members.isEmpty();
+	}
+
+	/**
+	 * Notifies the listeners of all channels that changed since the last call, once per listener and channel
+	 */
+	private void flushNotifications() {
+		Map<RSChannel, PendingChange> changes = pendingChanges;
+		pendingChanges = new LinkedHashMap<>();
+		for (Map.Entry<RSChannel, PendingChange> e:changes.entrySet()) {
+			PendingChange pending = e.getValue();
+			if (isSameOutput(pending.newMax, pending.oldMax) && isSameOutput(pending.newSecMax, pending.oldSecMax)) {
+				// Changed back during the tick
+				continue;
+			}
+			// Listeners at removed positions were already removed from the network, so no positions need to be excluded
+			notifyListeners(e.getKey(), pending.newMax, pending.newSecMax, pending.excluded, Collections.emptyList());
 		}
-		l.removeIf(val -> val.isOwnedBy(owner));
-		if (l.isEmpty()) {
-			if (it!=null) {
-				it.remove();
+	}
+
+	/**
+	 * @return whether both values describe the same output, where null means no output at all
+	 */
+	private static boolean isSameOutput(@Nullable OutputValue a, @Nullable OutputValue b) {
+		IOwner ownerA = a!=null ? ((Owned) a).owner : null;
+		IOwner ownerB = b!=null ? ((Owned) b).owner : null;
+		int strengthA = a!=null ? a.getTargetState().getStrength() : 0;
+		int strengthB = b!=null ? b.getTargetState().getStrength() : 0;
+		return ownerA==ownerB && strengthA==strengthB;
+	}
+
+	@SubscribeEvent
+	public static void onServerTick(TickEvent.ServerTickEvent ev) {
+		if (ev.phase==TickEvent.Phase.END) {
+			for (int i = 0; i < MAX_NOTIFICATION_ROUNDS && !PENDING_NOTIFICATIONS.isEmpty(); i++) {
+				List<ControlPanelNetwork> toNotify = new ArrayList<>(PENDING_NOTIFICATIONS);
+				PENDING_NOTIFICATIONS.clear();
+				for (ControlPanelNetwork net:toNotify) {
+					net.flushNotifications();
+				}
 			}
-			return true;
-		} else {
-			return false;
+			lastTickChanges = changesThisTick;
+			lastTickNotifications = notificationsThisTick;
+			changesThisTick = 0;
+			notificationsThisTick = 0;
+		}
+	}
+
+	/**
+	 * @return the number of channel changes and of listener notifications in all networks in the last tick
+	 */
+	public static String getNotificationStats() {
+		return String.format("Panel channel changes: %d, listener notifications: %d (%s)", lastTickChanges,
+				lastTickNotifications, IWConfig.deferPanelNotifications ? "deferred" : "immediate");
+	}
+
+	/**
+	 * Splits are only checked once per tick for each network that lost members. This way unloading a chunk full of
+	 * panels costs one pass over the remaining members instead of one per removed panel.
+	 */
+	private void scheduleSplit(World w) {
+		if (!w.isRemote) {
+			PENDING_SPLITS.computeIfAbsent(w.provider.getDimension(),
+					d -> Collections.newSetFromMap(new IdentityHashMap<>())).add(this);
 		}
 	}
 
-	private <T extends Owned> boolean removeForChannel(BlockPos owner, List<T> l, Iterator<?> it) {
-		l.removeIf(val -> val.ownerAtPos(owner));
-		if (l.isEmpty()) {
-			if (it!=null) {
-				it.remove();
+	@SubscribeEvent
+	public static void onWorldTick(TickEvent.WorldTickEvent ev) {
+		if (ev.phase==TickEvent.Phase.END && !ev.world.isRemote) {
+			Set<ControlPanelNetwork> toSplit = PENDING_SPLITS.remove(ev.world.provider.getDimension());
+			if (toSplit!=null) {
+				for (ControlPanelNetwork net:toSplit) {
+					net.split(ev.world);
+				}
 			}
-			return true;
-		} else {
-			return false;
 		}
 	}
 
-	private void split(BlockPos pos, World w) {
-		Set<BlockPos> reached = new HashSet<>();
-		List<BlockPos> newForThis = null;
-		for (EnumFacing side : EnumFacing.VALUES) {
-			BlockPos start = pos.offset(side);
-			if (!reached.contains(start)) {
-				List<BlockPos> netForSide = MiscUtils.discoverLocal(start, (p, s) -> members.contains(p));
-				if (!netForSide.isEmpty()) {
-					reached.addAll(netForSide);
-					if (newForThis == null) {
-						newForThis = netForSide;
-					} else {
-						replaceWith(new ControlPanelNetwork(), w, netForSide);
-					}
+	@SubscribeEvent
+	public static void onWorldUnload(WorldEvent.Unload ev) {
+		PENDING_SPLITS.remove(ev.getWorld().provider.getDimension());
+		if (!ev.getWorld().isRemote && ev.getWorld().provider.getDimension()==0) {
+			// The overworld is only unloaded when the server stops
+			PENDING_NOTIFICATIONS.clear();
+		}
+	}
+
+	private void split(World w) {
+		LongOpenHashSet remaining = new LongOpenHashSet(members.size());
+		for (BlockPos member:members) {
+			remaining.add(member.toLong());
+		}
+		List<long[]> parts = new ArrayList<>();
+		int largest = 0;
+		while (!remaining.isEmpty()) {
+			BlockPos start = BlockPos.fromLong(remaining.iterator().nextLong());
+			long[] part = MiscUtils.discoverLocal(start, (p, s) -> remaining.contains(p.toLong()));
+			for (long packed:part) {
+				remaining.remove(packed);
+			}
+			if (!parts.isEmpty() && part.length>parts.get(largest).length) {
+				largest = parts.size();
+			}
+			parts.add(part);
+		}
+		// The largest part stays in this network, so as few members as possible have to be moved
+		for (int i = 0; i < parts.size(); i++) {
+			if (i!=largest) {
+				List<BlockPos> toMove = new ArrayList<>(parts.get(i).length);
+				for (long packed:parts.get(i)) {
+					toMove.add(BlockPos.fromLong(packed));
 				}
+				replaceWith(new ControlPanelNetwork(), w, toMove);
+			}
+		}
+	}
+
+	/**
+	 * The outputs on one channel, bucketed by strength. Within a bucket the outputs are kept in the order they were
+	 * added, so the strongest and second strongest outputs are the same ones a linear scan over all outputs would find.
+	 */
+	protected static class ChannelOutputs {
+		private static final int BUCKETS = 16;
+		@SuppressWarnings("unchecked")
+		private final Set<OutputValue>[] byStrength = new Set[BUCKETS];
+		private final Map<IOwner, OutputValue> byOwner = new IdentityHashMap<>();
+		// Bit i is set iff bucket i is not empty
+		private int nonEmpty = 0;
+
+		public void add(OutputValue value) {
+			int bucket = getBucket(value);
+			if (byStrength[bucket]==null) {
+				byStrength[bucket] = new LinkedHashSet<>();
+			}
+			byStrength[bucket].add(value);
+			nonEmpty |= 1<<bucket;
+			byOwner.put(value.owner, value);
+		}
+
+		public boolean remove(IOwner owner) {
+			OutputValue value = byOwner.remove(owner);
+			if (value==null) {
+				return false;
+			}
+			int bucket = getBucket(value);
+			byStrength[bucket].remove(value);
+			if (byStrength[bucket].isEmpty()) {
+				nonEmpty &= ~(1<<bucket);
+			}
+			return true;
+		}
+
+		public boolean isEmpty() {
+			return nonEmpty==0;
+		}
+
+		@Nullable
+		public OutputValue getStrongest() {
+			if (nonEmpty==0) {
+				return null;
+			}
+			return byStrength[highestBucket(nonEmpty)].iterator().next();
+		}
+
+		@Nullable
+		public OutputValue getSecondStrongest() {
+			if (nonEmpty==0) {
+				return null;
 			}
+			int highest = highestBucket(nonEmpty);
+			Iterator<OutputValue> inHighest = byStrength[highest].iterator();
+			inHighest.next();
+			if (inHighest.hasNext()) {
+				return inHighest.next();
+			}
+			int below = nonEmpty & ~(1<<highest);
+			if (below==0) {
+				return null;
+			}
+			return byStrength[highestBucket(below)].iterator().next();
+		}
+
+		public Collection<OutputValue> values() {
+			return byOwner.values();
+		}
+
+		private static int highestBucket(int mask) {
+			return 31-Integer.numberOfLeadingZeros(mask);
+		}
+
+		// Redstone strengths are 0-15, and outputs with strength 0 are never stored
+		private static int getBucket(OutputValue value) {
+			return Math.min(value.getTargetState().getStrength(), BUCKETS-1);
+		}
+	}
+
+	/**
+	 * A channel change that listeners haven't been notified of yet. If all changes in a tick were caused by the same
+	 * owner, its listeners are not notified (just like they wouldn't be for the individual changes).
+	 */
+	private static class PendingChange {
+		private Collection<IOwner> excluded;
+		private final OutputValue oldMax;
+		private final OutputValue oldSecMax;
+		private OutputValue newMax;
+		private OutputValue newSecMax;
+
+		private PendingChange(Collection<IOwner> excluded, OutputValue oldMax, OutputValue oldSecMax) {
+			this.excluded = excluded;
+			this.oldMax = oldMax;
+			this.oldSecMax = oldSecMax;
+		}
+
+		private void addCause(Collection<IOwner> causeExcluded) {
+			if (excluded.size()!=1 || causeExcluded.size()!=1
+					|| excluded.iterator().next()!=causeExcluded.iterator().next()) {
+				excluded = Collections.emptyList();
+			}
+		}
+	}
+
+	private static class OwnerIndex {
+		private final BlockPos pos;
+		private final Set<RSChannel> channels = new HashSet<>();
+
+		private OwnerIndex(BlockPos pos) {
+			this.pos = pos;
 		}
 	}
 
@@ -272,7 +610,7 @@ public class ControlPanelNetwork {
 		}
 
 		public final boolean isOwnedBy(IOwner o) {
-			return o.equals(owner);
+			return o==owner;
 		}
 
 		public final boolean ownerAtPos(BlockPos o) {
@@ -280,19 +618,28 @@ public class ControlPanelNetwork {
 		}
 
 		public final boolean isOwnedBy(Collection<IOwner> o) {
-			return o.contains(owner);
+			for (IOwner other:o) {
+				if (other==owner) {
+					return true;
+				}
+			}
+			return false;
 		}
 
 		public final boolean ownerAtPos(Collection<BlockPos> o) {
 			return o.contains(getOwnerPos());
 		}
 
+		public final boolean isOwnerIn(Set<IOwner> o) {
+			return o.contains(owner);
+		}
+
 		public final BlockPos getOwnerPos() {
 			return owner==null?BlockPos.ORIGIN:owner.getBlockPos();
 		}
 
 		public boolean hasSameOwner(Owned active) {
-			return Objects.equals(owner, active.owner);
+			return owner==active.owner;
 		}
 	}
 
@@ -124,7 +124,7 @@ public class IndicatorLight extends PanelComponent implements IConfigurableCompo
 		if (state.getStrength() != rsInput) {
 			rsInput = state.getStrength();
 			panel.markDirty();
-			panel.triggerRenderUpdate();
+			markForSync();
 		}
 	};
 
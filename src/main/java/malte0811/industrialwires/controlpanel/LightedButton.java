@@ -125,7 +125,7 @@ public class LightedButton extends PanelComponent implements IConfigurableCompon
 			}
 		}
 		panel.markDirty();
-		panel.triggerRenderUpdate();
+		markForSync();
 	}
 
 	@Override
@@ -159,7 +159,7 @@ public class LightedButton extends PanelComponent implements IConfigurableCompon
 	private void setOut(boolean on) {
 		active = on;
 		panel.markDirty();
-		panel.triggerRenderUpdate();
+		markForSync();
 		network.setOutputs(this, new RSChannelState(outputChannel, (byte)(active?15:0)));
 	}
 
@@ -207,7 +207,7 @@ public class Lock extends PanelComponent implements IConfigurableComponent {
 			}
 		}
 		panel.markDirty();
-		panel.triggerRenderUpdate();
+		markForSync();
 	}
 
 	@Override
@@ -216,7 +216,7 @@ public class Lock extends PanelComponent implements IConfigurableComponent {
 			ticksTillOff--;
 			if (ticksTillOff == 0) {
 				turned = false;
-				panel.triggerRenderUpdate();
+				markForSync();
 				setOut();
 			}
 			panel.markDirty();
@@ -48,6 +48,7 @@ public abstract class PanelComponent implements IOwner {
 	private final String type;
 	protected TileEntityPanel panel;
 	protected ControlPanelNetwork network;
+	private boolean syncNeeded = false;
 
 	protected PanelComponent(String type) {
 		this.type = type;
@@ -166,20 +167,33 @@ public abstract class PanelComponent implements IOwner {
 		setPanelHeight(nbt.getFloat("panelHeight"));
 	}
 
+	/**
+	 * Marks the state of this component as changed. The panel sends the new state of all changed components to the
+	 * clients once per tick instead of resending the whole tile.
+	 */
+	protected void markForSync() {
+		syncNeeded = true;
+	}
+
+	public boolean needsSync() {
+		return syncNeeded;
+	}
+
+	public void writeSyncNBT(NBTTagCompound nbt) {
+		writeCustomNBT(nbt, false);
+		syncNeeded = false;
+	}
+
+	public void readSyncNBT(NBTTagCompound nbt) {
+		readCustomNBT(nbt);
+		aabb = null;
+	}
+
 	public boolean isValidPos(List<PanelComponent> components, float height, float angle) {
-		float h = PanelUtils.getHeightWithComponent(this, angle, height);
-		if (h < 0 || h > 1) {
+		if (!isInsidePanel(height, angle)) {
 			return false;
 		}
-
 		AxisAlignedBB aabb = getBlockRelativeAABB();
-		if (aabb.minX < 0 || aabb.maxX > 1) {
-			return false;
-		}
-		if (aabb.minZ < 0 || aabb.maxZ > 1) {
-			return false;
-		}
-
 		for (PanelComponent pc : components) {
 			if (pc == this) {
 				continue;
@@ -192,6 +206,40 @@ public abstract class PanelComponent implements IOwner {
 		return true;
 	}
 
+	/**
+	 * Same as isValidPos(List, float, float), but only checks the components near this one according to occupancy.
+	 * The IDs in occupancy have to be the indices in components.
+	 */
+	public boolean isValidPos(List<PanelComponent> components, ComponentGrid occupancy, float height, float angle) {
+		if (!isInsidePanel(height, angle)) {
+			return false;
+		}
+		AxisAlignedBB aabb = getBlockRelativeAABB();
+		int count = occupancy.queryBox(aabb.minX, aabb.minZ, aabb.maxX, aabb.maxZ);
+		for (int i = 0; i < count; i++) {
+			PanelComponent pc = components.get(occupancy.getResult(i));
+			if (pc != this && PanelUtils.intersectXZ(aabb, pc.getBlockRelativeAABB())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isInsidePanel(float height, float angle) {
+		float h = PanelUtils.getHeightWithComponent(this, angle, height);
+		if (h < 0 || h > 1) {
+			return false;
+		}
+		AxisAlignedBB aabb = getBlockRelativeAABB();
+		if (aabb.minX < 0 || aabb.maxX > 1) {
+			return false;
+		}
+		if (aabb.minZ < 0 || aabb.maxZ > 1) {
+			return false;
+		}
+		return true;
+	}
+
 	@SideOnly(Side.CLIENT)
 	public void renderBox() {
 		GlStateManager.pushMatrix();
@@ -201,7 +201,7 @@ public class PanelMeter extends PanelComponent implements IConfigurableComponent
 					rsInput = strength * 17;
 				}
 				panel.markDirty();
-				panel.triggerRenderUpdate();
+				markForSync();
 			}
 		};
 		net.addListener(this, listenerPrimary, primary);
@@ -210,7 +210,7 @@ public class PanelMeter extends PanelComponent implements IConfigurableComponent
 				if (input.getStrength() != (rsInput & 0xf)) {
 					rsInput = (input.getStrength() & 0xf) | (rsInput & 0xf0);
 					panel.markDirty();
-					panel.triggerRenderUpdate();
+					markForSync();
 				}
 			};
 			net.addListener(this, listenerSec, secondary);
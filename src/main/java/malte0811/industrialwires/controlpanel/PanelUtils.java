@@ -62,7 +62,18 @@ public final class PanelUtils {
 	}
 
 	@SideOnly(Side.CLIENT)
-	public static List<BakedQuad> generateQuads(PanelRenderProperties components) {
+	public static List<BakedQuad> generateComponentQuads(PanelComponent pc, Matrix4 topTransform, Matrix4 topNormal) {
+		Matrix4 m4Here = topTransform.copy().translate(pc.getX(), PanelComponent.Y_DELTA, pc.getY());
+		List<RawQuad> compQuads = pc.getQuads();
+		List<BakedQuad> ret = new ArrayList<>(compQuads.size());
+		for (RawQuad bq : compQuads) {
+			ret.add(ClientUtilsIW.bakeQuad(bq, m4Here, topNormal));
+		}
+		return ret;
+	}
+
+	@SideOnly(Side.CLIENT)
+	public static List<BakedQuad> generateBaseQuads(PanelRenderProperties components) {
 		if (PANEL_TEXTURE == null) {
 			TextureMap texMap = Minecraft.getMinecraft().getTextureMapBlocks();
 			PANEL_TEXTURE = texMap.getAtlasSprite(IndustrialWires.MODID + ":blocks/control_panel");
@@ -74,21 +85,7 @@ public final class PanelUtils {
 					null, null);
 		}
 		final TextureAtlasSprite mainTex = texModel != null ? texModel.getParticleTexture() : PANEL_TEXTURE;
-		List<BakedQuad> ret = new ArrayList<>();
-		Matrix4 m4 = components.getPanelTopTransform();
-		Matrix4 m4RotOnly = m4.copy();
-		m4RotOnly.invert();
-		m4RotOnly.transpose();
-		//Intentionally not a for-each to help with CME's
-		//noinspection ForLoopReplaceableByForEach
-		for (int i = 0; i < components.size(); i++) {
-			PanelComponent pc = components.get(i);
-			Matrix4 m4Here = m4.copy().translate(pc.getX(), PanelComponent.Y_DELTA, pc.getY());
-			List<RawQuad> compQuads = pc.getQuads();
-			for (RawQuad bq : compQuads) {
-				ret.add(ClientUtilsIW.bakeQuad(bq, m4Here, m4RotOnly));
-			}
-		}
+		List<BakedQuad> ret = new ArrayList<>(6);
 		Matrix4 baseTrans = components.getPanelBaseTransform();
 		Matrix4 baseNorm = baseTrans.copy();
 		baseNorm.invert();
@@ -172,7 +172,7 @@ public class PropertyComponents implements IUnlistedProperty<PropertyComponents.
 		}
 
 		public PanelRenderProperties copyOf() {
-			PanelRenderProperties ret = new PanelRenderProperties(size());
+			PanelRenderProperties ret = createEmpty();
 			for (PanelComponent pc : this) {
 				ret.add(pc.copyOf());
 			}
@@ -184,6 +184,10 @@ public class PropertyComponents implements IUnlistedProperty<PropertyComponents.
 			return ret;
 		}
 
+		protected PanelRenderProperties createEmpty() {
+			return new PanelRenderProperties(size());
+		}
+
 		public float getPanelMaxHeight() {
 			return (float) (getHeight() + Math.abs(Math.tan(angle) / 2));
 		}
@@ -321,5 +325,10 @@ public class PropertyComponents implements IUnlistedProperty<PropertyComponents.
 		public float getHeight() {
 			return (float) getPanelBoundingBox().maxY;
 		}
+
+		@Override
+		protected PanelRenderProperties createEmpty() {
+			return new AABBPanelProperties();
+		}
 	}
 }
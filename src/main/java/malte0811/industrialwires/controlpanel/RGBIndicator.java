@@ -146,7 +146,7 @@ public class RGBIndicator extends PanelComponent implements IConfigurableCompone
 					rgbState &= ~(255 << (8 * finalI));
 					rgbState |= state.getStrength() << (8 * finalI + 4);
 					panel.markDirty();
-					panel.triggerRenderUpdate();
+					markForSync();
 				}
 			}, input[i]);
 		}
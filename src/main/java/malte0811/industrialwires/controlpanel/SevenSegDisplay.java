@@ -123,7 +123,7 @@ public class SevenSegDisplay extends PanelComponent implements IConfigurableComp
 			if (inputNew.getStrength() != input) {
 				input = inputNew.getStrength();
 				panel.markDirty();
-				panel.triggerRenderUpdate();
+				markForSync();
 			}
 		};
 		net.addListener(this, handler, inputChannel);
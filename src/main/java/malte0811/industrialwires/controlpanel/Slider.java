@@ -187,7 +187,7 @@ public class Slider extends PanelComponent implements IConfigurableComponent {
 		network.setOutputs(this, new RSChannelState(secondary, (byte) (value&0xf)));
 		out = value;
 		panel.markDirty();
-		panel.triggerRenderUpdate();
+		markForSync();
 	}
 
 	@Override
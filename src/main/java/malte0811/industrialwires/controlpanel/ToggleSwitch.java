@@ -160,7 +160,7 @@ public class ToggleSwitch extends PanelComponent implements IConfigurableCompone
 		active = on;
 		network.setOutputs(this, new RSChannelState(outputChannel, (byte) (active ? 15 : 0)));
 		panel.markDirty();
-		panel.triggerRenderUpdate();
+		markForSync();
 	}
 
 	@Override
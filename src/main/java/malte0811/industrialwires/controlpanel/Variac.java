@@ -209,7 +209,7 @@ public class Variac extends PanelComponent implements IConfigurableComponent {
 		network.setOutputs(this, new RSChannelState(secondary, (byte) (value&0xf)));
 		out = value;
 		panel.markDirty();
-		panel.triggerRenderUpdate();
+		markForSync();
 	}
 
 	@Override
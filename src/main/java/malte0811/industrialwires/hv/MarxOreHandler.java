@@ -29,8 +29,7 @@ import net.minecraft.world.World;
 import net.minecraftforge.oredict.OreDictionary;
 
 import javax.annotation.Nullable;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 import java.util.function.BiPredicate;
 import java.util.function.Supplier;
 
@@ -38,6 +37,10 @@ import static net.minecraftforge.oredict.OreDictionary.getOres;
 
 public class MarxOreHandler {
 	private static final List<OreInfo> oreData = new ArrayList<>();
+	// Block state -> recipes matching it, in the order of oreData. Filled lazily and cleared whenever the recipes
+	// change. Blocks with a tile entity aren't cached, since their pick block (and so the ore dictionary match) can
+	// depend on the tile entity.
+	private static final Map<IBlockState, List<OreInfo>> MATCHING = new HashMap<>();
 	public static double defaultEnergy = 100_000;
 	public static double modifier;
 
@@ -68,6 +71,7 @@ public class MarxOreHandler {
 	}
 
 	public static void init() {
+		invalidateCache();
 		oreData.removeIf(
 				(info)->
                         info.exampleInput.isEmpty() || info.exampleInput.stream().allMatch(ItemStack::isEmpty)
@@ -89,6 +93,35 @@ public class MarxOreHandler {
 
 	public static void put(MarxOreHandler.OreInfo output) {
 		oreData.add(output);
+		invalidateCache();
+	}
+
+	/**
+	 * Has to be called when recipes are removed from the list returned by getRecipes
+	 */
+	public static void invalidateCache() {
+		MATCHING.clear();
+	}
+
+	private static List<OreInfo> getMatching(World world, BlockPos pos) {
+		IBlockState state = world.getBlockState(pos);
+		boolean cacheable = !state.getBlock().hasTileEntity(state);
+		List<OreInfo> ret = cacheable ? MATCHING.get(state) : null;
+		if (ret == null) {
+			ret = new ArrayList<>(1);
+			for (OreInfo ore : oreData) {
+				if (ore.isValid.test(world, pos)) {
+					ret.add(ore);
+				}
+			}
+			if (ret.isEmpty()) {
+				ret = Collections.emptyList();
+			}
+			if (cacheable) {
+				MATCHING.put(state, ret);
+			}
+		}
+		return ret;
 	}
 
 	public static void resetModifier() {
@@ -100,34 +133,32 @@ public class MarxOreHandler {
 			IndustrialWires.logger.error("The energy-modifier for Marx generators wasn't loaded correctly. It will be reset.");
 			resetModifier();
 		}
-		for (OreInfo ore:oreData) {
-			if (ore.isValid.test(world, pos)) {
-				double idealE = modifier * ore.avgEnergy * defaultEnergy;
-				if (energy >= .75 * idealE) {
-					double sigma = idealE / 9;
-					double dist = getNormalizedNormalDist(energy, sigma, idealE);
-					double out = dist * ore.maxYield;
-					int yield = (int) Math.floor(out);
-					out -= yield;
-					int yieldNuggets = (int) Math.round(out * ore.smallMax);
-                    if (yieldNuggets >= ore.smallMax || (ore.outputSmall == null && yieldNuggets >= ore.smallMax / 2F)) {
-                        yield++;
-                        yieldNuggets = 0;
-                    }
-                    if (yield > 0 && yieldNuggets > 0 && ore.outputSmall != null && ore.output != null) {
-                        return new ItemStack[]{
-                                ApiUtils.copyStackWithAmount(ore.output.get(), yield),
-                                ApiUtils.copyStackWithAmount(ore.outputSmall.get(), yieldNuggets)
-                        };
-                    } else if (yield > 0 && ore.output != null) {
-                        return new ItemStack[]{
-                                ApiUtils.copyStackWithAmount(ore.output.get(), yield)
-                        };
-                    } else if (yieldNuggets > 0 && ore.outputSmall != null) {
-                        return new ItemStack[]{
-                                ApiUtils.copyStackWithAmount(ore.outputSmall.get(), yieldNuggets)
-                        };
-                    }
+		for (OreInfo ore:getMatching(world, pos)) {
+			double idealE = modifier * ore.avgEnergy * defaultEnergy;
+			if (energy >= .75 * idealE) {
+				double sigma = idealE / 9;
+				double dist = getNormalizedNormalDist(energy, sigma, idealE);
+				double out = dist * ore.maxYield;
+				int yield = (int) Math.floor(out);
+				out -= yield;
+				int yieldNuggets = (int) Math.round(out * ore.smallMax);
+                if (yieldNuggets >= ore.smallMax || (ore.outputSmall == null && yieldNuggets >= ore.smallMax / 2F)) {
+                    yield++;
+                    yieldNuggets = 0;
+                }
+                if (yield > 0 && yieldNuggets > 0 && ore.outputSmall != null && ore.output != null) {
+                    return new ItemStack[]{
+                            ApiUtils.copyStackWithAmount(ore.output.get(), yield),
+                            ApiUtils.copyStackWithAmount(ore.outputSmall.get(), yieldNuggets)
+                    };
+                } else if (yield > 0 && ore.output != null) {
+                    return new ItemStack[]{
+                            ApiUtils.copyStackWithAmount(ore.output.get(), yield)
+                    };
+                } else if (yieldNuggets > 0 && ore.outputSmall != null) {
+                    return new ItemStack[]{
+                            ApiUtils.copyStackWithAmount(ore.outputSmall.get(), yieldNuggets)
+                    };
                 }
             }
         }
@@ -139,12 +170,10 @@ public class MarxOreHandler {
             IndustrialWires.logger.error("The energy-modifier for Marx generators wasn't loaded correctly. It will be reset.");
             resetModifier();
         }
-        for (OreInfo ore : oreData) {
-            if (ore.isValid.test(world, pos)) {
-                double idealE = modifier * ore.avgEnergy * defaultEnergy;
-                if (energy >= .95 * idealE && energy <= 1.05 * idealE && ore.blockOut != null && ore.blockOut.get() != null) {
-                    return ore.blockOut.get();
-                }
+        for (OreInfo ore : getMatching(world, pos)) {
+            double idealE = modifier * ore.avgEnergy * defaultEnergy;
+            if (energy >= .95 * idealE && energy <= 1.05 * idealE && ore.blockOut != null && ore.blockOut.get() != null) {
+                return ore.blockOut.get();
             }
         }
         return Blocks.AIR.getDefaultState();
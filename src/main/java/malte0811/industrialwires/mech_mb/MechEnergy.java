@@ -59,12 +59,59 @@ public final class MechEnergy {
 	public void decaySpeed(boolean lossless) {
 		//Decay should use https://www.researchgate.net/publication/241703345_Power_Loss_Prediction_in_High-Speed_Roller_Bearings and https://spectrum.ieee.org/superconducting-flywheel-grid-energy-storage (I guess on the last one)
 		//W to J/t is 3.6 because 86400 (sec per day) divided by 24000 (ticks per MC day) is 3.6
-		double energy = (lossless ? 0.00625 : 1) * 3.6 * Math.pow(1.125, 0.00545 * speed) * (weight/25000);
+		double energy = getDecayBase(lossless) * Math.pow(DECAY_EXP_BASE, DECAY_EXP_FACTOR * speed);
 		//Example function graph is here https://www.desmos.com/calculator/qz4wrimxqf
 		extractEnergy(energy);
 		if (speed < 0.1) speed = 0;
 	}
 
+	private static final double DECAY_EXP_BASE = 1.125;
+	private static final double DECAY_EXP_FACTOR = 0.00545;
+	private static final int MAX_TICKS_STEPPED = 20;
+
+	private double getDecayBase(boolean lossless) {
+		return (lossless ? 0.00625 : 1) * 3.6 * (weight/25000);
+	}
+
+	/**
+	 * Applies the decay of the given number of ticks at once, e.g. for the time a multiblock was unloaded. With
+	 * dE/dt=-c*e^(b*v) and E=I*v^2/2 the time needed to slow down from v0 to v is
+	 * t=I/c*(G(v)-G(v0)) with G(v)=e^(-b*v)*(b*v+1)/b^2. G is decreasing, so the new speed is found by bisection.
+	 */
+	public void decaySpeed(long ticks, boolean lossless) {
+		if (ticks <= MAX_TICKS_STEPPED) {
+			for (int i = 0; i < ticks; i++) {
+				decaySpeed(lossless);
+			}
+			return;
+		}
+		if (speed <= 0) {
+			return;
+		}
+		double b = DECAY_EXP_FACTOR * Math.log(DECAY_EXP_BASE);
+		double target = getDecayIntegral(speed, b) + ticks * getDecayBase(lossless) / inertia;
+		if (target >= getDecayIntegral(0, b)) {
+			speed = 0;
+			return;
+		}
+		double low = 0;
+		double high = speed;
+		for (int i = 0; i < 64 && high - low > 1e-9; i++) {
+			double mid = (low + high) / 2;
+			if (getDecayIntegral(mid, b) > target) {
+				low = mid;
+			} else {
+				high = mid;
+			}
+		}
+		speed = (low + high) / 2;
+		if (speed < 0.1) speed = 0;
+	}
+
+	private static double getDecayIntegral(double v, double b) {
+		return Math.exp(-b * v) * (b * v + 1) / (b * b);
+	}
+
 	private static final int TICKS_FOR_ADJUSTMENT = 30;
 	private double targetSpeed;
 	private double oldSpeed = -1;
@@ -0,0 +1,93 @@
+/*
+ * This file is part of Industrial Wires.
+ * Copyright (C) 2016-2018 malte0811
+ * Industrial Wires is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * Industrial Wires is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with Industrial Wires.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package malte0811.industrialwires.network;
+
+import io.netty.buffer.ByteBuf;
+import malte0811.industrialwires.IndustrialWires;
+import net.minecraft.client.Minecraft;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * All tile syncs for one player in one tick, see TileSyncDispatcher. Syncs of tiles with a SyncSchema are sent in its
+ * compact encoding if possible, all others as NBT.
+ */
+public class MessageTileSyncBundle implements IMessage {
+	private final List<BlockPos> positions = new ArrayList<>();
+	private final List<NBTTagCompound> data = new ArrayList<>();
+	private final List<SyncSchema> schemas = new ArrayList<>();
+
+	public MessageTileSyncBundle() {
+	}
+
+	/**
+	 * @param schema the schema to encode nbt with, or null to send it as NBT
+	 */
+	public void add(BlockPos pos, NBTTagCompound nbt, SyncSchema schema) {
+		positions.add(pos);
+		data.add(nbt);
+		schemas.add(schema);
+	}
+
+	@Override
+	public void fromBytes(ByteBuf buf) {
+		int count = ByteBufUtils.readVarInt(buf, 5);
+		for (int i = 0; i < count; i++) {
+			positions.add(BlockPos.fromLong(buf.readLong()));
+			SyncSchema schema = SyncSchema.byId(ByteBufUtils.readVarInt(buf, 5));
+			data.add(schema != null ? schema.decode(buf) : ByteBufUtils.readTag(buf));
+		}
+	}
+
+	@Override
+	public void toBytes(ByteBuf buf) {
+		ByteBufUtils.writeVarInt(buf, positions.size(), 5);
+		for (int i = 0; i < positions.size(); i++) {
+			buf.writeLong(positions.get(i).toLong());
+			SyncSchema schema = schemas.get(i);
+			if (schema != null && schema.canEncode(data.get(i))) {
+				ByteBufUtils.writeVarInt(buf, schema.getId(), 5);
+				schema.encode(data.get(i), buf);
+			} else {
+				ByteBufUtils.writeVarInt(buf, 0, 5);
+				ByteBufUtils.writeTag(buf, data.get(i));
+			}
+		}
+	}
+
+	public static class HandlerClient implements IMessageHandler<MessageTileSyncBundle, IMessage> {
+		@Override
+		public IMessage onMessage(MessageTileSyncBundle message, MessageContext ctx) {
+			Minecraft.getMinecraft().addScheduledTask(()-> {
+				World world = IndustrialWires.proxy.getClientWorld();
+				if (world != null) {
+					for (int i = 0; i < message.positions.size(); i++) {
+						MessageTileSyncIW.applySync(world, message.positions.get(i), message.data.get(i));
+					}
+				}
+			});
+			return null;
+		}
+	}
+}
@@ -61,13 +61,17 @@ public class MessageTileSyncIW implements IMessage {
 			Minecraft.getMinecraft().addScheduledTask(()-> {
 				World world = IndustrialWires.proxy.getClientWorld();
 				if (world != null) {
-					TileEntity tile = world.getTileEntity(message.pos);
-					if (tile instanceof ISyncReceiver) {
-						((ISyncReceiver) tile).onSync(message.nbt);
-					}
+					applySync(world, message.pos, message.nbt);
 				}
 			});
 			return null;
 		}
 	}
+
+	static void applySync(World world, BlockPos pos, NBTTagCompound nbt) {
+		TileEntity tile = world.getTileEntity(pos);
+		if (tile instanceof ISyncReceiver) {
+			((ISyncReceiver) tile).onSync(nbt);
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,272 @@
+/*
+ * This file is part of Industrial Wires.
+ * Copyright (C) 2016-2018 malte0811
+ * Industrial Wires is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * Industrial Wires is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with Industrial Wires.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package malte0811.industrialwires.network;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.nbt.*;
+import net.minecraftforge.common.util.Constants;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static malte0811.industrialwires.util.NBTKeys.SPEED;
+
+/**
+ * A fixed set of typed fields a tile sync can consist of. Syncs matching the schema of the tile (see
+ * ISyncReceiver#getSyncSchema) are sent as a bitmask of the present fields followed by their values, without any key
+ * strings or tag headers. The client turns them back into the NBTTagCompound the tile expects, so onSync doesn't need
+ * to know about the encoding. Syncs that don't match the schema are sent as NBT.
+ * Schemas are identified by a fixed ID, which has to be the same on both sides. 0 means "no schema".
+ */
+public final class SyncSchema {
+	private static final Map<Integer, SyncSchema> BY_ID = new HashMap<>();
+
+	public static final SyncSchema MECH_MB = new SyncSchema(1,
+			SPEED, FieldType.FLOAT);
+	public static final SyncSchema MARX = new SyncSchema(2,
+			"energy", FieldType.FLOAT,
+			"randSeed", FieldType.VARINT);
+	public static final SyncSchema JACOBS_LADDER = new SyncSchema(3,
+			"start", FieldType.BOOLEAN,
+			"cancel", FieldType.BOOLEAN,
+			"salt", FieldType.DOUBLE,
+			"timeTillActive", FieldType.VARINT,
+			"tStep", FieldType.DOUBLE,
+			"ctrlCtrl", FieldType.VEC3_GRID);
+
+	private final int id;
+	private final String[] names;
+	private final FieldType[] types;
+
+	/**
+	 * @param fields alternating field names and FieldTypes, at most 32 fields
+	 */
+	private SyncSchema(int id, Object... fields) {
+		this.id = id;
+		names = new String[fields.length / 2];
+		types = new FieldType[fields.length / 2];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = (String) fields[2 * i];
+			types[i] = (FieldType) fields[2 * i + 1];
+		}
+		if (id <= 0 || names.length > 32 || BY_ID.put(id, this) != null) {
+			throw new IllegalArgumentException("Invalid sync schema ID or field count: " + id);
+		}
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public static SyncSchema byId(int id) {
+		return BY_ID.get(id);
+	}
+
+	/**
+	 * @return whether every tag in nbt is a field of this schema with a matching type
+	 */
+	public boolean canEncode(NBTTagCompound nbt) {
+		for (String key : nbt.getKeySet()) {
+			int field = indexOf(key);
+			if (field < 0 || !types[field].accepts(nbt.getTag(key))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public void encode(NBTTagCompound nbt, ByteBuf buf) {
+		int present = 0;
+		for (int i = 0; i < names.length; i++) {
+			if (nbt.hasKey(names[i])) {
+				present |= 1 << i;
+			}
+		}
+		ByteBufUtils.writeVarInt(buf, present, 5);
+		for (int i = 0; i < names.length; i++) {
+			if ((present & (1 << i)) != 0) {
+				types[i].write(nbt.getTag(names[i]), buf);
+			}
+		}
+	}
+
+	public NBTTagCompound decode(ByteBuf buf) {
+		NBTTagCompound ret = new NBTTagCompound();
+		int present = ByteBufUtils.readVarInt(buf, 5);
+		for (int i = 0; i < names.length; i++) {
+			if ((present & (1 << i)) != 0) {
+				ret.setTag(names[i], types[i].read(buf));
+			}
+		}
+		return ret;
+	}
+
+	private int indexOf(String name) {
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public enum FieldType {
+		BOOLEAN {
+			@Override
+			boolean accepts(NBTBase tag) {
+				return tag instanceof NBTTagByte;
+			}
+
+			@Override
+			void write(NBTBase tag, ByteBuf buf) {
+				buf.writeBoolean(((NBTTagByte) tag).getByte() != 0);
+			}
+
+			@Override
+			NBTBase read(ByteBuf buf) {
+				return new NBTTagByte((byte) (buf.readBoolean() ? 1 : 0));
+			}
+		},
+		/**
+		 * Zigzag-encoded, so small negative values are short as well
+		 */
+		VARINT {
+			@Override
+			boolean accepts(NBTBase tag) {
+				return tag instanceof NBTTagInt;
+			}
+
+			@Override
+			void write(NBTBase tag, ByteBuf buf) {
+				int value = ((NBTTagInt) tag).getInt();
+				ByteBufUtils.writeVarInt(buf, (value << 1) ^ (value >> 31), 5);
+			}
+
+			@Override
+			NBTBase read(ByteBuf buf) {
+				int zigzag = ByteBufUtils.readVarInt(buf, 5);
+				return new NBTTagInt((zigzag >>> 1) ^ -(zigzag & 1));
+			}
+		},
+		/**
+		 * Also accepts doubles, which are sent with single precision
+		 */
+		FLOAT {
+			@Override
+			boolean accepts(NBTBase tag) {
+				return tag instanceof NBTTagFloat || tag instanceof NBTTagDouble;
+			}
+
+			@Override
+			void write(NBTBase tag, ByteBuf buf) {
+				buf.writeFloat(((NBTPrimitive) tag).getFloat());
+			}
+
+			@Override
+			NBTBase read(ByteBuf buf) {
+				return new NBTTagFloat(buf.readFloat());
+			}
+		},
+		DOUBLE {
+			@Override
+			boolean accepts(NBTBase tag) {
+				return tag instanceof NBTTagDouble;
+			}
+
+			@Override
+			void write(NBTBase tag, ByteBuf buf) {
+				buf.writeDouble(((NBTTagDouble) tag).getDouble());
+			}
+
+			@Override
+			NBTBase read(ByteBuf buf) {
+				return new NBTTagDouble(buf.readDouble());
+			}
+		},
+		/**
+		 * A list of lists of compounds with the double tags x, y and z (the format used for Vec3d[][] in NBT). The
+		 * coordinates are sent with single precision.
+		 */
+		VEC3_GRID {
+			@Override
+			boolean accepts(NBTBase tag) {
+				if (!(tag instanceof NBTTagList)) {
+					return false;
+				}
+				NBTTagList outer = (NBTTagList) tag;
+				if (outer.tagCount() > 0 && outer.getTagType() != Constants.NBT.TAG_LIST) {
+					return false;
+				}
+				for (int i = 0; i < outer.tagCount(); i++) {
+					NBTTagList inner = (NBTTagList) outer.get(i);
+					if (inner.tagCount() > 0 && inner.getTagType() != Constants.NBT.TAG_COMPOUND) {
+						return false;
+					}
+					for (int j = 0; j < inner.tagCount(); j++) {
+						NBTTagCompound vec = inner.getCompoundTagAt(j);
+						if (vec.getSize() != 3 || !vec.hasKey("x", Constants.NBT.TAG_DOUBLE)
+								|| !vec.hasKey("y", Constants.NBT.TAG_DOUBLE) || !vec.hasKey("z", Constants.NBT.TAG_DOUBLE)) {
+							return false;
+						}
+					}
+				}
+				return true;
+			}
+
+			@Override
+			void write(NBTBase tag, ByteBuf buf) {
+				NBTTagList outer = (NBTTagList) tag;
+				ByteBufUtils.writeVarInt(buf, outer.tagCount(), 5);
+				for (int i = 0; i < outer.tagCount(); i++) {
+					NBTTagList inner = (NBTTagList) outer.get(i);
+					ByteBufUtils.writeVarInt(buf, inner.tagCount(), 5);
+					for (int j = 0; j < inner.tagCount(); j++) {
+						NBTTagCompound vec = inner.getCompoundTagAt(j);
+						buf.writeFloat((float) vec.getDouble("x"));
+						buf.writeFloat((float) vec.getDouble("y"));
+						buf.writeFloat((float) vec.getDouble("z"));
+					}
+				}
+			}
+
+			@Override
+			NBTBase read(ByteBuf buf) {
+				NBTTagList outer = new NBTTagList();
+				int outerCount = ByteBufUtils.readVarInt(buf, 5);
+				for (int i = 0; i < outerCount; i++) {
+					NBTTagList inner = new NBTTagList();
+					int innerCount = ByteBufUtils.readVarInt(buf, 5);
+					for (int j = 0; j < innerCount; j++) {
+						NBTTagCompound vec = new NBTTagCompound();
+						vec.setDouble("x", buf.readFloat());
+						vec.setDouble("y", buf.readFloat());
+						vec.setDouble("z", buf.readFloat());
+						inner.appendTag(vec);
+					}
+					outer.appendTag(inner);
+				}
+				return outer;
+			}
+		};
+
+		abstract boolean accepts(NBTBase tag);
+
+		abstract void write(NBTBase tag, ByteBuf buf);
+
+		abstract NBTBase read(ByteBuf buf);
+	}
+}
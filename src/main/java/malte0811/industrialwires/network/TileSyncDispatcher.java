@@ -0,0 +1,158 @@
+/*
+ * This file is part of Industrial Wires.
+ * Copyright (C) 2016-2018 malte0811
+ * Industrial Wires is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * Industrial Wires is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with Industrial Wires.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package malte0811.industrialwires.network;
+
+import malte0811.industrialwires.IWConfig;
+import malte0811.industrialwires.IndustrialWires;
+import malte0811.industrialwires.blocks.ISyncReceiver;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.server.management.PlayerChunkMapEntry;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.event.world.ChunkWatchEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import java.util.*;
+
+/**
+ * Sends tile syncs only to the players that are tracking the chunk of the tile entity (and are within
+ * IWConfig.syncRange, if set). If the synced data is a state rather than an event, it can be kept and is sent to
+ * players that start tracking the chunk later on.
+ * All syncs for a player are collected and sent as one MessageTileSyncBundle at the end of the server tick.
+ */
+@Mod.EventBusSubscriber
+public final class TileSyncDispatcher {
+	// dimension -> chunk -> position -> last state. Keyed by position, so tiles that are broken aren't kept alive
+	private static final Map<Integer, Map<Long, Map<BlockPos, CatchUpState>>> CATCH_UP = new HashMap<>();
+	private static final Map<EntityPlayerMP, MessageTileSyncBundle> PENDING = new LinkedHashMap<>();
+
+	private TileSyncDispatcher() {
+	}
+
+	public static void sendToTracking(TileEntity te, NBTTagCompound nbt) {
+		sendToTracking(te, nbt, false);
+	}
+
+	/**
+	 * @param isState whether nbt describes the current state of the tile. If so, it is also sent to players that start
+	 *                tracking the chunk later
+	 */
+	public static void sendToTracking(TileEntity te, NBTTagCompound nbt, boolean isState) {
+		World world = te.getWorld();
+		if (world.isRemote) {
+			return;
+		}
+		BlockPos pos = te.getPos();
+		if (isState) {
+			CATCH_UP.computeIfAbsent(world.provider.getDimension(), d -> new HashMap<>())
+					.computeIfAbsent(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4), c -> new HashMap<>())
+					.put(pos, new CatchUpState(te.getClass(), nbt));
+		}
+		PlayerChunkMapEntry entry = ((WorldServer) world).getPlayerChunkMap().getEntry(pos.getX() >> 4, pos.getZ() >> 4);
+		if (entry != null) {
+			for (EntityPlayerMP player : entry.getWatchingPlayers()) {
+				if (isInRange(player, pos)) {
+					enqueue(player, te, nbt);
+				}
+			}
+		}
+	}
+
+	private static void enqueue(EntityPlayerMP player, TileEntity te, NBTTagCompound nbt) {
+		SyncSchema schema = te instanceof ISyncReceiver ? ((ISyncReceiver) te).getSyncSchema() : null;
+		PENDING.computeIfAbsent(player, p -> new MessageTileSyncBundle()).add(te.getPos(), nbt, schema);
+	}
+
+	private static boolean isInRange(EntityPlayerMP player, BlockPos pos) {
+		int range = IWConfig.syncRange;
+		return range <= 0 || player.getDistanceSqToCenter(pos) <= range * (double) range;
+	}
+
+	@SubscribeEvent
+	public static void onChunkWatch(ChunkWatchEvent.Watch ev) {
+		EntityPlayerMP player = ev.getPlayer();
+		World world = player.world;
+		Map<Long, Map<BlockPos, CatchUpState>> inDim = CATCH_UP.get(world.provider.getDimension());
+		if (inDim != null) {
+			ChunkPos chunk = ev.getChunk();
+			Map<BlockPos, CatchUpState> inChunk = inDim.get(ChunkPos.asLong(chunk.x, chunk.z));
+			if (inChunk != null) {
+				Iterator<Map.Entry<BlockPos, CatchUpState>> it = inChunk.entrySet().iterator();
+				while (it.hasNext()) {
+					Map.Entry<BlockPos, CatchUpState> e = it.next();
+					TileEntity te = world.getTileEntity(e.getKey());
+					// The state belongs to a tile that was removed or replaced
+					if (te == null || te.isInvalid() || te.getClass() != e.getValue().type) {
+						it.remove();
+					} else {
+						enqueue(player, te, e.getValue().nbt);
+					}
+				}
+				if (inChunk.isEmpty()) {
+					inDim.remove(ChunkPos.asLong(chunk.x, chunk.z));
+				}
+			}
+		}
+	}
+
+	@SubscribeEvent
+	public static void onServerTick(TickEvent.ServerTickEvent ev) {
+		// The watch event is fired while the chunk is sent, so catch up states are also only sent at the end of the tick
+		if (ev.phase == TickEvent.Phase.END && !PENDING.isEmpty()) {
+			for (Map.Entry<EntityPlayerMP, MessageTileSyncBundle> e : PENDING.entrySet()) {
+				if (!e.getKey().hasDisconnected()) {
+					IndustrialWires.packetHandler.sendTo(e.getValue(), e.getKey());
+				}
+			}
+			PENDING.clear();
+		}
+	}
+
+	@SubscribeEvent
+	public static void onChunkUnload(ChunkEvent.Unload ev) {
+		if (!ev.getWorld().isRemote) {
+			Map<Long, Map<BlockPos, CatchUpState>> inDim = CATCH_UP.get(ev.getWorld().provider.getDimension());
+			if (inDim != null) {
+				inDim.remove(ChunkPos.asLong(ev.getChunk().x, ev.getChunk().z));
+			}
+		}
+	}
+
+	@SubscribeEvent
+	public static void onWorldUnload(WorldEvent.Unload ev) {
+		if (!ev.getWorld().isRemote) {
+			CATCH_UP.remove(ev.getWorld().provider.getDimension());
+		}
+	}
+
+	private static final class CatchUpState {
+		private final Class<? extends TileEntity> type;
+		private final NBTTagCompound nbt;
+
+		private CatchUpState(Class<? extends TileEntity> type, NBTTagCompound nbt) {
+			this.type = type;
+			this.nbt = nbt;
+		}
+	}
+}
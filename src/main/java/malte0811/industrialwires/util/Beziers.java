@@ -17,7 +17,12 @@ package malte0811.industrialwires.util;
 
 import net.minecraft.util.math.Vec3d;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public final class Beziers {
+	private static final Map<Long, BasisTable> TABLES = new ConcurrentHashMap<>();
+
 	private Beziers() {
 	}
 
@@ -27,24 +32,83 @@ public final class Beziers {
 		} else if (t == 1) {
 			return controls[controls.length - 1];
 		}
-		Vec3d ret = new Vec3d(0, 0, 0);
-		int n = controls.length - 1;
+		double[] basis = new double[controls.length];
+		getBasis(t, basis);
+		return combine(basis, controls);
+	}
+
+	/**
+	 * Writes the Bernstein basis polynomials of degree basis.length-1 evaluated at t to basis
+	 */
+	public static void getBasis(double t, double[] basis) {
+		int n = basis.length - 1;
+		// t^i in the first pass, then multiplied by the binomial coefficient and (1-t)^(n-i) in the second
+		double pow = 1;
 		for (int i = 0; i <= n; i++) {
-			double coeff = binomialCoeff(n, i) * Math.pow(t, i) * Math.pow(1 - t, n - i);
-			ret = ret.add(coeff * controls[i].x, coeff * controls[i].y, coeff * controls[i].z);
+			basis[i] = pow;
+			pow *= t;
+		}
+		pow = 1;
+		double binomial = 1;
+		for (int i = n; i >= 0; i--) {
+			basis[i] *= binomial * pow;
+			pow *= 1 - t;
+			binomial = binomial * i / (n - i + 1);
+		}
+	}
+
+	private static Vec3d combine(double[] basis, Vec3d[] controls) {
+		double x = 0, y = 0, z = 0;
+		for (int i = 0; i < basis.length; i++) {
+			x += basis[i] * controls[i].x;
+			y += basis[i] * controls[i].y;
+			z += basis[i] * controls[i].z;
 		}
-		return ret;
+		return new Vec3d(x, y, z);
 	}
 
-	public static int binomialCoeff(int n, int k) {
-		return factorial(n - k + 1, n) / factorial(2, k);
+	/**
+	 * @return the basis values of the given degree at t=k/steps for k=0..steps
+	 */
+	public static BasisTable getTable(int degree, int steps) {
+		return TABLES.computeIfAbsent(((long) degree << 32) | steps, k -> new BasisTable(degree, steps));
 	}
 
-	public static int factorial(int start, int end) {
-		int ret = 1;
-		for (int i = start; i <= end; i++) {
-			ret *= i;
+	public static final class BasisTable {
+		private final double[][] values;
+
+		private BasisTable(int degree, int steps) {
+			values = new double[steps + 1][degree + 1];
+			for (int k = 0; k <= steps; k++) {
+				getBasis(k / (double) steps, values[k]);
+			}
+		}
+
+		public int getSteps() {
+			return values.length - 1;
+		}
+
+		/**
+		 * @return the point at t=k/steps of the curve defined by controls
+		 */
+		public Vec3d getPoint(int k, Vec3d[] controls) {
+			return combine(values[k], controls);
+		}
+
+		/**
+		 * Writes the point at t=k/steps of the curve defined by controls to out, starting at offset
+		 */
+		public void getPoint(int k, Vec3d[] controls, double[] out, int offset) {
+			double[] basis = values[k];
+			double x = 0, y = 0, z = 0;
+			for (int i = 0; i < basis.length; i++) {
+				x += basis[i] * controls[i].x;
+				y += basis[i] * controls[i].y;
+				z += basis[i] * controls[i].z;
+			}
+			out[offset] = x;
+			out[offset + 1] = y;
+			out[offset + 2] = z;
 		}
-		return ret;
 	}
 }
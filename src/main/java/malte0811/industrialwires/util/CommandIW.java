@@ -16,6 +16,7 @@
 package malte0811.industrialwires.util;
 
 import malte0811.industrialwires.IWSaveData;
+import malte0811.industrialwires.controlpanel.ControlPanelNetwork;
 import malte0811.industrialwires.hv.MarxOreHandler;
 import net.minecraft.command.CommandBase;
 import net.minecraft.command.CommandException;
@@ -38,7 +39,7 @@ public class CommandIW extends CommandBase {
 	@Nonnull
 	@Override
 	public String getUsage(@Nonnull ICommandSender sender) {
-		return "/iw <getmarx|resetmarx|setmarx <value>>";
+		return "/iw <getmarx|resetmarx|setmarx <value>|panelstats>";
 	}
 
 	@Override
@@ -61,6 +62,9 @@ public class CommandIW extends CommandBase {
 				IWSaveData.INSTANCE.markDirty();
 				sender.sendMessage(new TextComponentString("Successfully set Marx energy factor"));
 				break;
+			case "panelstats":
+				sender.sendMessage(new TextComponentString(ControlPanelNetwork.getNotificationStats()));
+				break;
 		}
 	}
 
@@ -68,7 +72,7 @@ public class CommandIW extends CommandBase {
 	@Override
 	public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, @Nullable BlockPos targetPos) {
 		if (args.length==1) {
-			return getListOfStringsMatchingLastWord(args, "getmarx", "setmarx", "resetmarx");
+			return getListOfStringsMatchingLastWord(args, "getmarx", "setmarx", "resetmarx", "panelstats");
 		}
 		return super.getTabCompletions(server, sender, args, targetPos);
 	}
@@ -15,12 +15,14 @@
 
 package malte0811.industrialwires.util;
 
+import malte0811.industrialwires.client.panelmodel.PanelModelCache;
 import malte0811.industrialwires.client.render.TileRenderMarx;
 import net.minecraft.command.CommandBase;
 import net.minecraft.command.CommandException;
 import net.minecraft.command.ICommandSender;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TextComponentString;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
@@ -39,7 +41,7 @@ public class CommandIWClient extends CommandBase {
 	@Nonnull
 	@Override
 	public String getUsage(@Nonnull ICommandSender sender) {
-		return "/ciw <triggermarxscreenshot>";
+		return "/ciw <triggermarxscreenshot|panelmodelstats>";
 	}
 
 	@Override
@@ -51,6 +53,11 @@ public class CommandIWClient extends CommandBase {
 			case "triggermarxscreenshot":
 				TileRenderMarx.screenShot = true;
 				break;
+			case "panelmodelstats":
+				for (String line : PanelModelCache.getStats()) {
+					sender.sendMessage(new TextComponentString(line));
+				}
+				break;
 		}
 	}
 
@@ -58,7 +65,7 @@ public class CommandIWClient extends CommandBase {
 	@Override
 	public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, @Nullable BlockPos targetPos) {
 		if (args.length==1) {
-			return getListOfStringsMatchingLastWord(args, "triggermarxscreenshot");
+			return getListOfStringsMatchingLastWord(args, "triggermarxscreenshot", "panelmodelstats");
 		}
 		return super.getTabCompletions(server, sender, args, targetPos);
 	}
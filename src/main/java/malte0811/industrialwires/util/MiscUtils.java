@@ -23,6 +23,7 @@ import blusunrize.immersiveengineering.api.energy.wires.ImmersiveNetHandler;
 import blusunrize.immersiveengineering.common.util.Utils;
 import blusunrize.immersiveengineering.common.util.chickenbones.Matrix4;
 import com.google.common.collect.ImmutableSet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import malte0811.industrialwires.IndustrialWires;
 import malte0811.industrialwires.hv.MultiblockMarx;
 import net.minecraft.block.state.IBlockState;
@@ -46,25 +47,43 @@ public final class MiscUtils {
 	private MiscUtils() {
 	}
 
-	public static List<BlockPos> discoverLocal(BlockPos here, BiPredicate<BlockPos, Integer> isValid) {
-		if (!isValid.test(here, 0)) {
-			return new ArrayList<>();
+	public static long[] discoverLocal(BlockPos here, BiPredicate<BlockPos, Integer> isValid) {
+		return discoverLocal(here, isValid, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Flood fill starting at here. isValid is called with the candidate position and the number of positions found so
+	 * far.
+	 * @param maxSize the search stops once this many positions have been found
+	 * @return the positions found, packed using BlockPos#toLong
+	 */
+	public static long[] discoverLocal(BlockPos here, BiPredicate<BlockPos, Integer> isValid, int maxSize) {
+		if (maxSize<=0 || !isValid.test(here, 0)) {
+			return new long[0];
 		}
-		List<BlockPos> ret = new ArrayList<>();
+		long[] ret = new long[16];
+		int size = 0;
+		LongOpenHashSet seen = new LongOpenHashSet();
 		Queue<BlockPos> open = new ArrayDeque<>();
 		open.add(here);
-		while (!open.isEmpty()) {
+		seen.add(here.toLong());
+		while (!open.isEmpty() && size < maxSize) {
 			BlockPos curr = open.poll();
-			assert curr!=null;
-			ret.add(curr);
+			if (size==ret.length) {
+				ret = Arrays.copyOf(ret, 2*size);
+			}
+			ret[size] = curr.toLong();
+			size++;
 			for (EnumFacing f : EnumFacing.VALUES) {
 				BlockPos next = curr.offset(f);
-				if (!open.contains(next) && !ret.contains(next) && isValid.test(next, ret.size())) {
+				long nextPacked = next.toLong();
+				if (!seen.contains(nextPacked) && isValid.test(next, size)) {
+					seen.add(nextPacked);
 					open.offer(next);
 				}
 			}
 		}
-		return ret;
+		return Arrays.copyOf(ret, size);
 	}
 
 	public static BlockPos offset(BlockPos p, EnumFacing f, boolean mirror, Vec3i relative) {
@@ -61,6 +61,7 @@ public final class NBTKeys {
 	public static final String MAX_SPEED = "maxSpeed";
 	public static final String SIDE_CONFIG = "sideConfig";
 	public static final String LOSSLESS = "lossless";
+	public static final String SAVE_TIME = "saveTime";
 
 
 	private NBTKeys() {}
@@ -0,0 +1,241 @@
+/*
+ * This file is part of Industrial Wires.
+ * Copyright (C) 2016-2018 malte0811
+ * Industrial Wires is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * Industrial Wires is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with Industrial Wires.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package malte0811.industrialwires.wires;
+
+import blusunrize.immersiveengineering.api.ApiUtils;
+import blusunrize.immersiveengineering.api.energy.wires.IImmersiveConnectable;
+import blusunrize.immersiveengineering.api.energy.wires.ImmersiveNetHandler;
+import blusunrize.immersiveengineering.api.energy.wires.ImmersiveNetHandler.AbstractConnection;
+import blusunrize.immersiveengineering.api.energy.wires.ImmersiveNetHandler.Connection;
+import blusunrize.immersiveengineering.api.energy.wires.WireType;
+import malte0811.industrialwires.IMixedConnector;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.EventPriority;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Stores the outputs reachable from each mixed connector along with their loss rates. The routes only change when a
+ * connection is added or removed, so they are rebuilt lazily after {@link #invalidate(World)} instead of every tick.
+ * IE does not expose wire network IDs, so (like IE's own indirect connection cache) the routes are grouped by dimension.
+ *
+ * The wire load caused by the routes is summed up in int arrays indexed by wire and written to IE's transfer map once
+ * at the end of the tick (or before the routes are dropped), before IE checks it for overloaded wires.
+ */
+@Mod.EventBusSubscriber
+public final class EnergyRoutingCache {
+	private static final Map<Integer, EnergyRoutingCache> CACHES = new HashMap<>();
+
+	private final int dimension;
+	private final Map<BlockPos, List<Route>> routes = new HashMap<>();
+	private final Map<Connection, Integer> wireIds = new HashMap<>();
+	private final List<Connection> wires = new ArrayList<>();
+	private int[] wireLoad = new int[16];
+	private boolean[] loaded = new boolean[16];
+	private int[] loadedWires = new int[16];
+	private int loadedCount = 0;
+
+	private EnergyRoutingCache(int dimension) {
+		this.dimension = dimension;
+	}
+
+	public static List<Route> getRoutes(World world, BlockPos source) {
+		EnergyRoutingCache cache = CACHES.computeIfAbsent(world.provider.getDimension(), EnergyRoutingCache::new);
+		List<Route> ret = cache.routes.get(source);
+		if (ret==null) {
+			Set<AbstractConnection> conns = ImmersiveNetHandler.INSTANCE.getIndirectEnergyConnections(source, world, true);
+			ret = new ArrayList<>(conns.size());
+			for (AbstractConnection c : conns) {
+				ret.add(new Route(cache, c));
+			}
+			cache.routes.put(source, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Has to be called whenever a connection in a mixed wire network is added or removed
+	 */
+	public static void invalidate(World world) {
+		if (!world.isRemote) {
+			EnergyRoutingCache cache = CACHES.remove(world.provider.getDimension());
+			if (cache!=null) {
+				cache.flushWireLoad();
+			}
+		}
+	}
+
+	/**
+	 * Drops all routes, e.g. because the loss rates in the config changed
+	 */
+	public static void invalidateAll() {
+		for (EnergyRoutingCache cache : CACHES.values()) {
+			cache.flushWireLoad();
+		}
+		CACHES.clear();
+	}
+
+	@SubscribeEvent(priority = EventPriority.LOWEST)
+	public static void onWorldTick(TickEvent.WorldTickEvent ev) {
+		if (ev.phase==TickEvent.Phase.END && !ev.world.isRemote) {
+			EnergyRoutingCache cache = CACHES.get(ev.world.provider.getDimension());
+			if (cache!=null) {
+				cache.flushWireLoad();
+			}
+		}
+	}
+
+	@SubscribeEvent
+	public static void onWorldUnload(WorldEvent.Unload event) {
+		invalidate(event.getWorld());
+	}
+
+	private int getWireId(Connection wire) {
+		Integer id = wireIds.get(wire);
+		if (id==null) {
+			id = wires.size();
+			wires.add(wire);
+			wireIds.put(wire, id);
+			if (id>=wireLoad.length) {
+				wireLoad = Arrays.copyOf(wireLoad, 2*wireLoad.length);
+				loaded = Arrays.copyOf(loaded, 2*loaded.length);
+				loadedWires = Arrays.copyOf(loadedWires, 2*loadedWires.length);
+			}
+		}
+		return id;
+	}
+
+	private void flushWireLoad() {
+		if (loadedCount==0) {
+			return;
+		}
+		HashMap<Connection, Integer> transferedPerConn = ImmersiveNetHandler.INSTANCE.getTransferedRates(dimension);
+		for (int i = 0; i < loadedCount; i++) {
+			int id = loadedWires[i];
+			Connection wire = wires.get(id);
+			transferedPerConn.put(wire, transferedPerConn.getOrDefault(wire, 0) + wireLoad[id]);
+			wireLoad[id] = 0;
+			loaded[id] = false;
+		}
+		loadedCount = 0;
+	}
+
+	public static final class Route {
+		public final AbstractConnection connection;
+		// Same as connection.getAverageLossRate(), which is recalculated on every call
+		public final float averageLossRate;
+		private final double[] lossByType = new double[EnergyType.values().length];
+		private final EnergyRoutingCache cache;
+		private final int[] wireIds;
+		private final double[] wireLoss;
+		// The connectors along the route, without duplicates and in the order energy passes them
+		private final BlockPos[] passed;
+		private final IImmersiveConnectable[] passedConnectors;
+		@Nullable
+		private IImmersiveConnectable end;
+
+		private Route(EnergyRoutingCache cache, AbstractConnection connection) {
+			this.cache = cache;
+			this.connection = connection;
+			averageLossRate = connection.getAverageLossRate();
+			for (EnergyType type : EnergyType.values()) {
+				double f = 0;
+				for (Connection c : connection.subConnections) {
+					WireType wire = c.cableType;
+					if (wire instanceof MixedWireType) {
+						f += c.length * ((MixedWireType) wire).getLoss(type);
+					} else {
+						f = Double.POSITIVE_INFINITY;
+					}
+				}
+				lossByType[type.ordinal()] = f;
+			}
+			int subCount = connection.subConnections.length;
+			wireIds = new int[subCount];
+			wireLoss = new double[subCount];
+			Set<BlockPos> passedSet = new LinkedHashSet<>();
+			for (int i = 0; i < subCount; i++) {
+				Connection sub = connection.subConnections[i];
+				wireIds[i] = cache.getWireId(sub);
+				wireLoss[i] = sub.cableType.getLossRatio() * sub.length;
+				passedSet.add(sub.start);
+				passedSet.add(sub.end);
+			}
+			passed = passedSet.toArray(new BlockPos[0]);
+			passedConnectors = new IImmersiveConnectable[passed.length];
+		}
+
+		public double getLossRate(EnergyType type) {
+			return lossByType[type.ordinal()];
+		}
+
+		/**
+		 * Equivalent to ApiUtils.toIIC(connection.end, world). Loaded tile entities are kept until they are invalidated,
+		 * proxies and missing connectors are resolved again on every call.
+		 */
+		@Nullable
+		public IImmersiveConnectable getEnd(World world) {
+			end = resolve(end, connection.end, world);
+			return end;
+		}
+
+		@Nullable
+		public IMixedConnector getMixedEnd(World world) {
+			IImmersiveConnectable iic = getEnd(world);
+			return iic instanceof IMixedConnector ? (IMixedConnector) iic : null;
+		}
+
+		/**
+		 * Adds the load caused by energyAtConn to every wire along the route and notifies the connectors that were
+		 * passed, without allocating anything.
+		 */
+		public void addWireLoad(World world, double energyAtConn, double wireRatio, int passthrough) {
+			EnergyRoutingCache c = cache;
+			for (int i = 0; i < wireIds.length; i++) {
+				int id = wireIds[i];
+				energyAtConn -= wireLoss[i];
+				c.wireLoad[id] = (int) (c.wireLoad[id] + energyAtConn/wireRatio);
+				if (!c.loaded[id]) {
+					c.loaded[id] = true;
+					c.loadedWires[c.loadedCount] = id;
+					c.loadedCount++;
+				}
+			}
+			for (int i = 0; i < passed.length; i++) {
+				IImmersiveConnectable iic = resolve(passedConnectors[i], passed[i], world);
+				passedConnectors[i] = iic;
+				if (iic!=null) {
+					iic.onEnergyPassthrough(passthrough);
+				}
+			}
+		}
+
+		@Nullable
+		private static IImmersiveConnectable resolve(@Nullable IImmersiveConnectable cached, BlockPos pos, World world) {
+			if (!(cached instanceof TileEntity) || ((TileEntity) cached).isInvalid()) {
+				return ApiUtils.toIIC(pos, world);
+			}
+			return cached;
+		}
+	}
+}